@@ -1,6 +1,5 @@
 package ch.epfl.chacun;
 
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -49,9 +48,8 @@ public final class ActionEncoder {
      */
     public static StateAction withPlacedTile(GameState state, PlacedTile tile) {
         if (state.board().canAddTile(tile)) {
-            int rot = tile.rotation().ordinal();
             int pos = sortedPositions(state).indexOf(tile.pos());
-            String action = Base32.encodeBits10(pos << POSITION_SHIFT | rot);
+            String action = encodePlacement(pos, tile.rotation());
 
             return new StateAction(state.withPlacedTile(tile), action);
         }
@@ -70,14 +68,10 @@ public final class ActionEncoder {
      */
     public static StateAction withNewOccupant(GameState state, Occupant occupant) {
         if (occupant == null)
-            return new StateAction(state.withNewOccupant(null), Base32.encodeBits5(NULL_OCCUPANT));
+            return new StateAction(state.withNewOccupant(null), encodeOccupant(null));
 
-        if (state.lastTilePotentialOccupants().contains(occupant)) {
-            int zoneId = Zone.localId(occupant.zoneId());
-            int kind = occupant.kind().ordinal();
-            String action = Base32.encodeBits5(kind << OCCUPANT_KIND_SHIFT | zoneId);
-            return new StateAction(state.withNewOccupant(occupant), action);
-        }
+        if (state.lastTilePotentialOccupants().contains(occupant))
+            return new StateAction(state.withNewOccupant(occupant), encodeOccupant(occupant));
         return null;
     }
 
@@ -93,12 +87,12 @@ public final class ActionEncoder {
      */
     public static StateAction withOccupantRemoved(GameState state, Occupant occupant) {
         if (occupant == null)
-            return new StateAction(state.withOccupantRemoved(null), Base32.encodeBits5(NULL_OCCUPANT));
+            return new StateAction(state.withOccupantRemoved(null), encodeOccupant(null));
 
-        List<Occupant> sortedPawns = sortedPawns(state);
-        if (state.currentPlayer() == state.board().tileWithId(Zone.tileId(occupant.zoneId())).placer()
-                && sortedPawns.contains(occupant)) {
-            String action = Base32.encodeBits5(sortedPawns.indexOf(occupant));
+        int pawnIndex = sortedPawns(state).indexOf(occupant);
+        if (pawnIndex != -1
+                && state.currentPlayer() == state.board().tileWithId(Zone.tileId(occupant.zoneId())).placer()) {
+            String action = encodePawnIndex(pawnIndex);
             return new StateAction(state.withOccupantRemoved(occupant), action);
         }
         return null;
@@ -106,9 +100,7 @@ public final class ActionEncoder {
 
     /**
      * Decodes and applies an action to a game state. If the action is invalid or
-     * cannot be decoded, the function returns null by catching any exception
-     * thrown during the decoding process, since there are a lot of possible
-     * exceptions that can be thrown during the decoding process in the game state.
+     * cannot be decoded, the function returns null.
      *
      * @param state the game state to apply the action to
      * @param action the action to decode and apply
@@ -116,97 +108,185 @@ public final class ActionEncoder {
      */
     public static StateAction decodeAndApply(GameState state, String action) {
         try {
-            return decode(state, action);
+            if (action.length() != actionLength(state)) throw new EncoderException(InvalidAction.BAD_LENGTH);
+            return new StateAction(apply(state, decode(action, 0, action.length())), action);
         } catch (EncoderException encoderException) {
             return null;
         }
     }
 
     /**
-     * Decodes an action and applies it to a game state. The action is decoded
-     * based on the next action of the game state, and the corresponding function
-     * is called to apply the action.
+     * Decodes and applies all actions of a stream of concatenated encoded actions
+     * to a game state, in a single pass over the stream. The length of each action
+     * is given by the next action of the game state it is applied to, so the actions
+     * do not have to be separated. The decoding stops at the first invalid action.
      *
-     * @param state the game state to apply the action to
-     * @param action the action to decode and apply
-     * @return the new game state and the decoded action
-     * @throws EncoderException if the action is invalid
+     * @param state the game state to apply the actions to
+     * @param actions the concatenated encoded actions
+     * @return the state after the valid actions, with the index,
+     *         the offset and the reason of the first invalid action if there is one
+     */
+    public static BatchResult decodeAndApplyAll(GameState state, CharSequence actions) {
+        int offset = 0;
+        int count = 0;
+        while (offset < actions.length()) {
+            try {
+                int length = actionLength(state);
+                if (length == 0) throw new EncoderException(InvalidAction.NO_ACTION_EXPECTED);
+                if (offset + length > actions.length()) throw new EncoderException(InvalidAction.BAD_LENGTH);
+                state = apply(state, decode(actions, offset, length));
+                offset += length;
+                count++;
+            } catch (EncoderException encoderException) {
+                return new BatchResult(state, count, offset, encoderException.reason);
+            }
+        }
+        return new BatchResult(state, count, offset, null);
+    }
+
+    /**
+     * Private function that returns the length of the next action of a game state.
+     *
+     * @param state the game state
+     * @return the number of characters of the next action, or 0 if no action is expected
+     */
+    private static int actionLength(GameState state) {
+        return switch (state.nextAction()) {
+            case PLACE_TILE -> 2;
+            case OCCUPY_TILE, RETAKE_PAWN -> 1;
+            case START_GAME, END_GAME -> 0;
+        };
+    }
+
+    /**
+     * Private function that decodes the base-32 characters of an action.
+     *
+     * @param actions the characters containing the action
+     * @param offset the index of the first character of the action
+     * @param length the number of characters of the action
+     * @return the bits of the action
+     * @throws EncoderException if a character is not a base-32 one
      */
-    private static StateAction decode(GameState state, String action) throws EncoderException {
-        if (action.length() > 2) throw new EncoderException();
-        int actionRepresentation = Base32.decode(action);
+    private static int decode(CharSequence actions, int offset, int length) throws EncoderException {
+        int code = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int bits = Base32.bitsOf(actions.charAt(i));
+            if (bits == -1) throw new EncoderException(InvalidAction.BAD_CHARACTER);
+            code = code << Base32.CHARACTER_BIT_SIZE | bits;
+        }
+        return code;
+    }
 
-        // Decoding the action based on the next action of the game state
+    /**
+     * Private function that applies a decoded action to a game state, based on
+     * the next action of the game state. The insertion position and the pawn are
+     * found in the orders the board keeps them in, without sorting them.
+     *
+     * @param state the game state to apply the action to
+     * @param code the bits of the action
+     * @return the new game state
+     * @throws EncoderException if the action is invalid in the game state
+     */
+    private static GameState apply(GameState state, int code) throws EncoderException {
+        Board board = state.board();
         switch (state.nextAction()) {
             case PLACE_TILE -> {
-                if (action.length() != 2) throw new EncoderException();
-                int rotation = actionRepresentation & ROTATION_MASK;
-                int position = actionRepresentation >> POSITION_SHIFT;
+                Rotation rotation = Rotation.ALL.get(code & ROTATION_MASK);
+                int position = code >> POSITION_SHIFT;
 
-                PlacedTile tile = new PlacedTile(
-                        state.tileToPlace(),
-                        state.currentPlayer(),
-                        Rotation.ALL.get(rotation),
-                        sortedPositions(state).get(position));
+                List<Pos> positions = board.sortedInsertionPositions();
+                if (position >= positions.size()) throw new EncoderException(InvalidAction.NO_SUCH_POSITION);
+                if (!board.fitsInsertionPosition(position, state.tileToPlace(), rotation))
+                    throw new EncoderException(InvalidAction.TILE_DOES_NOT_FIT);
 
-                return withPlacedTile(state, tile);
+                return state.withPlacedTile(new PlacedTile(state.tileToPlace(),
+                        state.currentPlayer(), rotation, positions.get(position)));
             }
             case OCCUPY_TILE -> {
-                if (actionRepresentation == NULL_OCCUPANT)
-                    return withNewOccupant(state, null);
-
-                int zone = actionRepresentation & ZONE_MASK;
-                int kind = actionRepresentation >> OCCUPANT_KIND_SHIFT;
+                if (code == NULL_OCCUPANT) return state.withNewOccupant(null);
 
+                int zone = code & ZONE_MASK;
+                int kind = code >> OCCUPANT_KIND_SHIFT;
                 for (Occupant occupant : state.lastTilePotentialOccupants()) {
                     if (Zone.localId(occupant.zoneId()) == zone
                             && occupant.kind().ordinal() == kind)
-                        return withNewOccupant(state, occupant);
+                        return state.withNewOccupant(occupant);
                 }
+                throw new EncoderException(InvalidAction.NO_SUCH_OCCUPANT);
             }
             case RETAKE_PAWN -> {
-                if (action.length() != 1) throw new EncoderException();
-                if (actionRepresentation == NULL_OCCUPANT)
-                    return withOccupantRemoved(state, null);
+                if (code == NULL_OCCUPANT) return state.withOccupantRemoved(null);
 
-                return withOccupantRemoved(state, sortedPawns(state).get(actionRepresentation));
+                List<Occupant> pawns = board.sortedPawns();
+                if (code >= pawns.size()) throw new EncoderException(InvalidAction.NO_SUCH_PAWN);
+                Occupant pawn = pawns.get(code);
+                if (board.tileWithId(Zone.tileId(pawn.zoneId())).placer() != state.currentPlayer())
+                    throw new EncoderException(InvalidAction.NOT_OWN_PAWN);
+                return state.withOccupantRemoved(pawn);
             }
+            default -> throw new EncoderException(InvalidAction.NO_ACTION_EXPECTED);
         }
-        throw new EncoderException();
+    }
+
+    /**
+     * Encodes the placement of a tile at the insertion position of the given index
+     * among the sorted insertion positions, with the given rotation.
+     *
+     * @param positionIndex the index of the position in the sorted insertion positions
+     * @param rotation the rotation of the tile
+     * @return the encoded action
+     */
+    static String encodePlacement(int positionIndex, Rotation rotation) {
+        return Base32.encodeBits10(positionIndex << POSITION_SHIFT | rotation.ordinal());
+    }
+
+    /**
+     * Encodes the occupation of the last placed tile by the given occupant.
+     * The encoding of no occupant is also the one of retaking no pawn.
+     *
+     * @param occupant the occupant (can be null)
+     * @return the encoded action
+     */
+    static String encodeOccupant(Occupant occupant) {
+        if (occupant == null) return Base32.encodeBits5(NULL_OCCUPANT);
+        int zoneId = Zone.localId(occupant.zoneId());
+        int kind = occupant.kind().ordinal();
+        return Base32.encodeBits5(kind << OCCUPANT_KIND_SHIFT | zoneId);
+    }
+
+    /**
+     * Encodes the removal of the pawn of the given index among the sorted pawns.
+     *
+     * @param pawnIndex the index of the pawn in the sorted pawns
+     * @return the encoded action
+     */
+    static String encodePawnIndex(int pawnIndex) {
+        return Base32.encodeBits5(pawnIndex);
     }
 
     /**
      * Returns a list of all sorted insertion positions on the
      * board of a game state where the player could place his next tile.
-     * Positions are sorted by their x-coordinate first, then by their y-coordinate.
+     * Positions are sorted by their x-coordinate first, then by their y-coordinate,
+     * the board keeps them in this order so they do not have to be sorted again.
      *
      * @param state the game state to get the positions from
      * @return the sorted list of positions
      */
     private static List<Pos> sortedPositions(GameState state) {
-        return state
-                .board()
-                .insertionPositions()
-                .stream()
-                .sorted(Comparator.comparingInt(Pos::x).thenComparingInt(Pos::y))
-                .toList();
+        return state.board().sortedInsertionPositions();
     }
 
     /**
      * Returns a list of all pawns on the board of a game state.
-     * The function returns all pawns ordered by their zone ID in ascending order.
+     * The function returns all pawns ordered by their zone ID in ascending order,
+     * the board keeps them in this order so they do not have to be filtered or sorted.
      *
      * @param state the game state to get the pawns from
      * @return the sorted list of pawns
      */
-    private static List<Occupant> sortedPawns(GameState state) {
-        return state
-                .board()
-                .occupants()
-                .stream()
-                .filter(occupant -> occupant.kind() == Occupant.Kind.PAWN)
-                .sorted(Comparator.comparingInt(Occupant::zoneId))
-                .toList();
+    static List<Occupant> sortedPawns(GameState state) {
+        return state.board().sortedPawns();
     }
 
     /**
@@ -215,11 +295,83 @@ public final class ActionEncoder {
      */
     public record StateAction(GameState state, String action) {}
 
+    /**
+     * Represents the reasons why an encoded action is invalid.
+     */
+    public enum InvalidAction {
+        /**
+         * A character of the action is not a base-32 character
+         */
+        BAD_CHARACTER,
+        /**
+         * The action does not have the length of the next action of the game
+         */
+        BAD_LENGTH,
+        /**
+         * No action is expected, the game not being started or being over
+         */
+        NO_ACTION_EXPECTED,
+        /**
+         * The tile is placed at an index with no insertion position
+         */
+        NO_SUCH_POSITION,
+        /**
+         * The rotated tile does not fit the insertion position
+         */
+        TILE_DOES_NOT_FIT,
+        /**
+         * The occupant is not a potential occupant of the last placed tile
+         */
+        NO_SUCH_OCCUPANT,
+        /**
+         * There is no pawn at the index of the pawn to retake
+         */
+        NO_SUCH_PAWN,
+        /**
+         * The pawn to retake belongs to another player
+         */
+        NOT_OWN_PAWN
+    }
+
+    /**
+     * Represents the result of the decoding of a stream of actions.
+     *
+     * @param state the game state after the valid actions
+     * @param validActions the number of valid actions applied, which is
+     *                     the index of the first invalid action if there is one
+     * @param offset the index of the first character of the first invalid action
+     *               in the stream, or the length of the stream if all actions are valid
+     * @param reason the reason why the first invalid action is invalid,
+     *               or null if all actions are valid
+     */
+    public record BatchResult(GameState state, int validActions, int offset, InvalidAction reason) {
+
+        /**
+         * Checks if all actions of the stream are valid.
+         *
+         * @return true if all actions are valid, false otherwise
+         */
+        public boolean isValid() {
+            return reason == null;
+        }
+    }
+
     /**
      * Private exception to handle exceptions thrown during
      * the encoding and decoding process of actions.
      */
     private static class EncoderException extends Exception {
-        public EncoderException() {}
+
+        // Reason why the action is invalid
+        private final InvalidAction reason;
+
+        /**
+         * Constructor of the exception with the reason why the action is invalid.
+         *
+         * @param reason the reason why the action is invalid
+         */
+        public EncoderException(InvalidAction reason) {
+            this.reason = reason;
+        }
     }
 }
@@ -1,7 +1,13 @@
 package ch.epfl.chacun;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * Class that provides utility methods for encoding and decoding base-32 strings.
+ * The characters are decoded through a table indexed by their code, and the encoded
+ * strings of one and two characters are all created once, so that neither encoding
+ * nor decoding allocates anything.
  *
  * @author Alexis Grillet-Aubert (381587)
  * @author Jakub Kliment (380660)
@@ -28,16 +34,65 @@ public final class Base32 {
      */
     public static final int CHARACTER_MASK = (1 << CHARACTER_BIT_SIZE) - 1;
 
+    /**
+     * The mask for extracting the 10 least significant bits of an integer.
+     */
+    private static final int TWO_CHARACTERS_MASK = (1 << 2 * CHARACTER_BIT_SIZE) - 1;
+
+    /**
+     * The bits of the characters, indexed by their code (-1 for the characters
+     * that are not in the alphabet), which only covers the ASCII characters.
+     */
+    private static final byte[] BITS = new byte[128];
+
+    /**
+     * The encoded strings of one and two characters, indexed by their bits.
+     */
+    private static final String[] ONE_CHARACTER = new String[1 << CHARACTER_BIT_SIZE];
+    private static final String[] TWO_CHARACTERS = new String[1 << 2 * CHARACTER_BIT_SIZE];
+
+    static {
+        Arrays.fill(BITS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            BITS[ALPHABET.charAt(i)] = (byte) i;
+            ONE_CHARACTER[i] = String.valueOf(ALPHABET.charAt(i)).intern();
+        }
+        for (int i = 0; i < TWO_CHARACTERS.length; i++)
+            TWO_CHARACTERS[i] = (ONE_CHARACTER[i >> CHARACTER_BIT_SIZE] + ONE_CHARACTER[i & CHARACTER_MASK]).intern();
+    }
+
+    /**
+     * Returns the bits of a base-32 character.
+     *
+     * @param c the character
+     * @return the bits of the character, or -1 if it is not a base-32 character
+     */
+    public static int bitsOf(char c) {
+        return c < BITS.length ? BITS[c] : -1;
+    }
+
+    /**
+     * Checks if the given character is a valid base-32 character.
+     *
+     * @param c the character to check
+     * @return true if the character is valid, false otherwise
+     */
+    public static boolean isValid(char c) {
+        return bitsOf(c) != -1;
+    }
+
     /**
      * Checks if the given string is a valid base-32 string.
      *
      * @param s the string to check
      * @return true if the string is valid, false otherwise
      */
-    public static boolean isValid(String s) {
+    public static boolean isValid(CharSequence s) {
         Preconditions.checkArgument(s != null);
         if (s.isEmpty()) return false;
-        return s.chars().allMatch(c -> ALPHABET.indexOf(c) != -1);
+        for (int i = 0; i < s.length(); i++)
+            if (!isValid(s.charAt(i))) return false;
+        return true;
     }
 
     /**
@@ -45,10 +100,10 @@ public final class Base32 {
      * Encodes one character at a time.
      *
      * @param bits the bits to encode
-     * @return the encoded character
+     * @return the encoded character, which is always the same string for the same bits
      */
     public static String encodeBits5(int bits) {
-        return Character.toString(ALPHABET.charAt(bits & CHARACTER_MASK));
+        return ONE_CHARACTER[bits & CHARACTER_MASK];
     }
 
     /**
@@ -56,21 +111,83 @@ public final class Base32 {
      * Encodes two characters at a time.
      *
      * @param bits the bits to encode
-     * @return the encoded string
+     * @return the encoded string, which is always the same string for the same bits
      */
     public static String encodeBits10(int bits) {
-        return encodeBits5(bits >> CHARACTER_BIT_SIZE) + encodeBits5(bits);
+        return TWO_CHARACTERS[bits & TWO_CHARACTERS_MASK];
+    }
+
+    /**
+     * Encodes the 5 least significant bits of an integer into a base-32 character,
+     * written as an ASCII byte at the position of the buffer.
+     *
+     * @param bits the bits to encode
+     * @param buffer the buffer to write the character to
+     */
+    public static void encodeBits5(int bits, ByteBuffer buffer) {
+        buffer.put((byte) ALPHABET.charAt(bits & CHARACTER_MASK));
+    }
+
+    /**
+     * Encodes the 10 least significant bits of an integer into two base-32 characters,
+     * written as ASCII bytes at the position of the buffer.
+     *
+     * @param bits the bits to encode
+     * @param buffer the buffer to write the characters to
+     */
+    public static void encodeBits10(int bits, ByteBuffer buffer) {
+        encodeBits5(bits >> CHARACTER_BIT_SIZE, buffer);
+        encodeBits5(bits, buffer);
     }
 
     /**
-     * Decodes a base-32 character into the 5 least significant bits of an integer.
+     * Decodes a base-32 string into the least significant bits of an integer.
      *
      * @param s the character(s) (string) to decode
      * @return the decoded bits
+     * @throws IllegalArgumentException if a character is not a base-32 character
+     */
+    public static int decode(CharSequence s) {
+        return decode(s, 0, s.length());
+    }
+
+    /**
+     * Decodes the base-32 characters of a part of a sequence of characters into
+     * the least significant bits of an integer. A {@code char[]} is decoded by
+     * wrapping it once into a {@link java.nio.CharBuffer}.
+     *
+     * @param s the sequence of characters
+     * @param offset the index of the first character to decode
+     * @param length the number of characters to decode
+     * @return the decoded bits
+     * @throws IllegalArgumentException if a character is not a base-32 character
+     */
+    public static int decode(CharSequence s, int offset, int length) {
+        int bits = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int characterBits = bitsOf(s.charAt(i));
+            Preconditions.checkArgument(characterBits != -1);
+            bits = bits << CHARACTER_BIT_SIZE | characterBits;
+        }
+        return bits;
+    }
+
+    /**
+     * Decodes base-32 characters, read as ASCII bytes from the position
+     * of the buffer, into the least significant bits of an integer.
+     *
+     * @param buffer the buffer to read the characters from
+     * @param length the number of characters to decode
+     * @return the decoded bits
+     * @throws IllegalArgumentException if a character is not a base-32 character
      */
-    public static int decode(String s) {
-        return s.chars()
-                .map(ALPHABET::indexOf)
-                .reduce(0, (acc, c) -> (acc << CHARACTER_BIT_SIZE) | c);
+    public static int decode(ByteBuffer buffer, int length) {
+        int bits = 0;
+        for (int i = 0; i < length; i++) {
+            int characterBits = bitsOf((char) (buffer.get() & 0xFF));
+            Preconditions.checkArgument(characterBits != -1);
+            bits = bits << CHARACTER_BIT_SIZE | characterBits;
+        }
+        return bits;
     }
-}
\ No newline at end of file
+}
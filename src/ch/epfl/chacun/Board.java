@@ -12,18 +12,37 @@ import java.util.*;
  */
 public final class Board {
 
-    // Placed tiles of the board on their positions (index)
-    private final PlacedTile[] placedTiles;
+    // Placed tiles of the board indexed by the packed code of their position,
+    // shared structurally with the previous versions of the board
+    private final PersistentArray<PlacedTile> placedTiles;
 
     // Indexes of the placed tiles in order of their placement
     private final int[] index;
 
+    // Index of each placed tile by its id (null if the tile is not placed),
+    // shared structurally with the previous versions of the board
+    private final PersistentArray<Integer> tileIndexes;
+
     // Partitions of areas on the board
     private final ZonePartitions zonePartitions;
 
     // Set of all cancelled animals on the board
     private final Set<Animal> cancelledAnimals;
 
+    // Insertion positions of the board, shared with
+    // the versions of the board with the same placed tiles
+    private final InsertionPositions insertionPositions;
+
+    // Occupants of the board
+    private final OccupantSet occupants;
+
+    // Number of occupants of each kind placed by each player,
+    // indexed by the player and then by the kind of occupant
+    private final int[] occupantCounts;
+
+    // Potential occupants of the last placed tile in unoccupied areas
+    private final OccupantSet lastTilePotentialOccupants;
+
     /**
      * The size of the board (total number of possible positions)
      */
@@ -34,15 +53,48 @@ public final class Board {
      */
     public static final int REACH = 12;
 
+    /**
+     * The codes of the kinds of tile sides, that take two bits
+     * (0 is used for the side of an empty position)
+     */
+    private static final int FOREST_SIDE = 0b01;
+    private static final int MEADOW_SIDE = 0b10;
+    private static final int RIVER_SIDE = 0b11;
+
+    /**
+     * The number of bits of the code of a kind of tile side
+     */
+    private static final int SIDE_BITS = 2;
+
+    /**
+     * The mask to extract the codes of the sides of a signature
+     */
+    private static final int SIGNATURE_MASK = (1 << Direction.COUNT * SIDE_BITS) - 1;
+
+    /**
+     * The mask of the lowest bit of the code of every side of a signature
+     */
+    private static final int LOW_SIDE_BITS = 0b01010101;
+
+    /**
+     * The number of kinds of occupants
+     */
+    private static final int OCCUPANT_KINDS = Occupant.Kind.values().length;
+
     /**
      * The empty board with no placed tiles, no indexes,
      * no partitions and no cancelled animals.
      */
     public static final Board EMPTY = new Board(
-            new PlacedTile[BOARD_SIZE],
+            PersistentArray.empty(),
             new int[0],
+            PersistentArray.empty(),
             ZonePartitions.EMPTY,
-            new HashSet<>());
+            new HashSet<>(),
+            InsertionPositions.EMPTY,
+            OccupantSet.EMPTY,
+            new int[PlayerColor.ALL.size() * OCCUPANT_KINDS],
+            OccupantSet.EMPTY);
 
     /**
      * Private board constructor to keep the class immutable.
@@ -51,17 +103,33 @@ public final class Board {
      *
      * @param placedTiles the placed tiles on the board
      * @param index the index of the placed tiles
+     * @param tileIndexes the index of each placed tile by its id
      * @param zonePartitions the partitions of the zones on the board
      * @param cancelledAnimals the set of all cancelled animals
-      */
-    private Board(PlacedTile[] placedTiles,
+     * @param insertionPositions the insertion positions of the board
+     * @param occupants the occupants of the board
+     * @param occupantCounts the number of occupants of each kind of each player
+     * @param lastTilePotentialOccupants the potential occupants of the last placed tile
+     *                                   in unoccupied areas
+     */
+    private Board(PersistentArray<PlacedTile> placedTiles,
                   int[] index,
+                  PersistentArray<Integer> tileIndexes,
                   ZonePartitions zonePartitions,
-                  Set<Animal> cancelledAnimals) {
+                  Set<Animal> cancelledAnimals,
+                  InsertionPositions insertionPositions,
+                  OccupantSet occupants,
+                  int[] occupantCounts,
+                  OccupantSet lastTilePotentialOccupants) {
         this.placedTiles = placedTiles;
         this.index = index;
+        this.tileIndexes = tileIndexes;
         this.zonePartitions = zonePartitions;
         this.cancelledAnimals = cancelledAnimals;
+        this.insertionPositions = insertionPositions;
+        this.occupants = occupants;
+        this.occupantCounts = occupantCounts;
+        this.lastTilePotentialOccupants = lastTilePotentialOccupants;
     }
 
     /**
@@ -74,14 +142,15 @@ public final class Board {
      *         or null if there is no tile
      */
     public PlacedTile tileAt(Pos pos) {
-        int position = indexFromPosition(pos);
-        if (position < 0 || position >= BOARD_SIZE) return null;
-        return placedTiles[position];
+        int position = pos.packed();
+        if (position == -1) return null;
+        return placedTiles.get(position);
     }
 
     /**
      * Gets the placed tile by its id on the board
      * or throws an exception if the tile is not found.
+     * The index of the tile is looked up by its id in constant time.
      *
      * @param tileId id of the placed tile
      * @return placed tile to which corresponds the id
@@ -89,10 +158,9 @@ public final class Board {
      *                                  match any tile on the board
      */
     public PlacedTile tileWithId(int tileId) {
-        for (int i : index)
-            if (placedTiles[i].id() == tileId)
-                return placedTiles[i];
-        throw new IllegalArgumentException();
+        Integer tileIndex = tileIndexes.get(tileId);
+        Preconditions.checkArgument(tileIndex != null);
+        return placedTiles.get(tileIndex);
     }
 
     /**
@@ -106,18 +174,26 @@ public final class Board {
     }
 
     /**
-     * Returns the set of all occupants on the board.
+     * Returns the set of all occupants on the board,
+     * which is kept up to date as occupants are added and removed.
      *
-     * @return set of all occupants on the board
+     * @return unmodifiable set of all occupants on the board, ordered by their zone id
      */
     public Set<Occupant> occupants() {
-        Set<Occupant> occupants = new HashSet<>();
-        for (int i : index)
-            if (placedTiles[i].occupant() != null)
-                occupants.add(placedTiles[i].occupant());
         return occupants;
     }
 
+    /**
+     * Returns the list of all pawns on the board, ordered by their zone id.
+     * The list is an unmodifiable view, so the index of a pawn and the pawn
+     * of an index are found without going through the pawns before it.
+     *
+     * @return the sorted list of all pawns on the board
+     */
+    public List<Occupant> sortedPawns() {
+        return occupants.pawns();
+    }
+
     /**
      * Returns the forest area containing the given forest zone
      * or throws an exception if the zone is not found in the partitions.
@@ -212,39 +288,54 @@ public final class Board {
     /**
      * Counts the number of occupants of a given kind
      * on the board that are placed by a given player.
+     * The counts are kept up to date as occupants are added and removed,
+     * so they are read in constant time.
      *
      * @param player the player to count the occupants of
      * @param occupantKind the kind of the occupant to count
      * @return the number of occupants of the given kind and player on the board
      */
     public int occupantCount(PlayerColor player, Occupant.Kind occupantKind) {
-        int occupantCount = 0;
-        for (Occupant occupant : occupants())
-            if (tileWithId(Zone.tileId(occupant.zoneId())).placer() == player
-                    && occupant.kind() == occupantKind)
-                occupantCount++;
-        return occupantCount;
+        return occupantCounts[counterIndex(player, occupantKind)];
+    }
+
+    /**
+     * Returns the potential occupants of the last placed tile whose area is not
+     * occupied yet, whichever player places them. They are computed once when
+     * the tiles or the occupants of the board change.
+     *
+     * @return the unmodifiable set of the potential occupants of the last placed tile
+     *         in unoccupied areas, ordered by their zone id (empty if the board is empty)
+     */
+    Set<Occupant> lastTilePotentialOccupants() {
+        return lastTilePotentialOccupants;
     }
 
     /**
      * Returns the set of all insertion positions on the board where
      * a tile can potentially be placed (next to an already  placed tile).
+     * The set is an unmodifiable view that is kept up to date when tiles
+     * are placed, it iterates over the positions sorted by their
+     * x-coordinate first, then by their y-coordinate.
      *
      * @return the set of all insertion positions on the board
      */
     public Set<Pos> insertionPositions() {
-        Set<Pos> insertionPositions = new HashSet<>();
-        for (int i : index) {
-            Pos pos = positionFromIndex(i);
-            for (Direction direction : Direction.ALL) {
-                Pos neighbor = pos.neighbor(direction);
-                if (tileAt(neighbor) == null && indexFromPosition(neighbor) != -1)
-                    insertionPositions.add(neighbor);
-            }
-        }
         return insertionPositions;
     }
 
+    /**
+     * Returns the list of all insertion positions on the board, sorted by
+     * their x-coordinate first, then by their y-coordinate. The list is
+     * an unmodifiable view, so the index of a position is found without
+     * going through the positions before it.
+     *
+     * @return the sorted list of all insertion positions on the board
+     */
+    public List<Pos> sortedInsertionPositions() {
+        return insertionPositions.sorted;
+    }
+
     /**
      * Returns the last placed tile on the board.
      *
@@ -253,7 +344,19 @@ public final class Board {
      */
     public PlacedTile lastPlacedTile() {
         if (index.length == 0) return null;
-        return placedTiles[index[index.length - 1]];
+        return placedTiles.get(index[index.length - 1]);
+    }
+
+    /**
+     * Returns the placed tiles of the board in order of their placement.
+     *
+     * @return the unmodifiable list of the placed tiles, in order of their placement
+     */
+    List<PlacedTile> placedTilesInOrder() {
+        PlacedTile[] tiles = new PlacedTile[index.length];
+        for (int i = 0; i < index.length; i++)
+            tiles[i] = placedTiles.get(index[i]);
+        return List.of(tiles);
     }
 
     /**
@@ -294,42 +397,54 @@ public final class Board {
      * Looks whether a tile can be added to the board at a certain
      * position by checking if its position is an insertion position
      * and if the sides match the sides of the neighboring tiles.
+     * The sides are compared through the signature of the tile and
+     * the constraint that the neighbors put on the insertion position.
      *
      * @param tile the tile to be placed
      * @return true if the tile can be added, false otherwise
      */
     public boolean canAddTile(PlacedTile tile) {
-        if (!insertionPositions().contains(tile.pos())) return false;
-
-        for (Direction dir : Direction.ALL) {
-            PlacedTile neighbor = tileAt(tile.pos().neighbor(dir));
-            // If the sides differ, the tile cannot be added
-            if (neighbor != null && !tile.side(dir)
-                    .isSameKindAs(neighbor.side(dir.opposite())))
-                return false;
-        }
-        return true;
+        int sortedIndex = tile.pos().packed();
+        return insertionPositions.contains(tile.pos())
+                && fits(rotated(signature(tile.tile()), tile.rotation().quarterTurnsCW()),
+                        insertionPositions.constraint(sortedIndex));
     }
 
     /**
      * Checks if a tile can be placed on the board by checking all
      * possible rotations of the tile in all insertion positions.
+     * Only compares the signatures of the rotated tile to the
+     * constraints of the insertion positions, without creating any object.
      *
      * @param tile the tile to be placed
      * @return true if the tile can be placed, false otherwise
      */
     public boolean couldPlaceTile(Tile tile) {
-        for (Pos pos : insertionPositions()) {
+        int signature = signature(tile);
+        for (int i = 0; i < insertionPositions.size(); i++) {
+            int constraint = insertionPositions.constraints[i] & SIGNATURE_MASK;
             // Looks for all possible rotations in an insertion position
-            for (Rotation rot : Rotation.ALL) {
-                PlacedTile possibleTile = new PlacedTile(
-                        tile, null, rot, pos, null);
-                if (canAddTile(possibleTile)) return true;
-            }
+            for (int quarterTurns = 0; quarterTurns < Rotation.COUNT; quarterTurns++)
+                if (fits(rotated(signature, quarterTurns), constraint)) return true;
         }
         return false;
     }
 
+    /**
+     * Checks whether a tile with the given rotation fits in the insertion
+     * position of the given rank among the sorted insertion positions,
+     * without creating any placed tile.
+     *
+     * @param rank the index of the position in the sorted insertion positions
+     * @param tile the tile to be placed
+     * @param rotation the rotation of the tile
+     * @return true if the rotated tile fits at the position, false otherwise
+     */
+    boolean fitsInsertionPosition(int rank, Tile tile, Rotation rotation) {
+        return fits(rotated(signature(tile), rotation.quarterTurnsCW()),
+                insertionPositions.constraints[rank] & SIGNATURE_MASK);
+    }
+
     /**
      * Adds a tile to the board and returns the new board with the tile placed.
      * The function assures that all the attributes of the board are kept immutable
@@ -344,13 +459,13 @@ public final class Board {
     public Board withNewTile(PlacedTile tile) {
         Preconditions.checkArgument(index.length == 0 || canAddTile(tile));
 
-        // Defensive copy of placedTiles with the new tile added
-        PlacedTile[] newPlacedTiles = placedTiles.clone();
-        newPlacedTiles[indexFromPosition(tile.pos())] = tile;
+        // New version of placedTiles with the new tile added
+        PersistentArray<PlacedTile> newPlacedTiles =
+                placedTiles.with(tile.pos().packed(), tile);
 
         // Defensive copy of index with the new index added
         int[] newIndex = Arrays.copyOf(index, index.length + 1);
-        newIndex[newIndex.length - 1] = indexFromPosition(tile.pos());
+        newIndex[newIndex.length - 1] = tile.pos().packed();
 
         // Defensive copy of zonePartitions with the new tile and its partitions added
         ZonePartitions.Builder newPartitions =
@@ -362,8 +477,23 @@ public final class Board {
                 newPartitions.connectSides(
                     tile.side(dir), neighbor.side(dir.opposite()));
         }
+        // Occupants and copy of the occupant counts with the occupant of the tile, if any
+        OccupantSet newOccupants = occupants;
+        int[] newCounts = occupantCounts;
+        if (tile.occupant() != null) {
+            newOccupants = occupants.with(tile.occupant());
+            if (tile.placer() != null) {
+                newCounts = occupantCounts.clone();
+                newCounts[counterIndex(tile.placer(), tile.occupant().kind())]++;
+            }
+        }
+
+        ZonePartitions builtPartitions = newPartitions.build();
         return new Board(newPlacedTiles, newIndex,
-                newPartitions.build(), cancelledAnimals());
+                tileIndexes.with(tile.id(), tile.pos().packed()),
+                builtPartitions, cancelledAnimals(),
+                insertionPositions.withTileAt(tile, newPlacedTiles), newOccupants, newCounts,
+                unoccupiedPotentialOccupants(tile, builtPartitions));
     }
 
     /**
@@ -379,11 +509,11 @@ public final class Board {
      *                                  is already occupied by another occupant
      */
     public Board withOccupant(Occupant occupant) {
-        PlacedTile[] newTiles = placedTiles.clone();
         PlacedTile occupantTile = tileWithId(
                 Zone.tileId(occupant.zoneId())).withOccupant(occupant);
-        newTiles[indexFromPosition(occupantTile.pos())] = occupantTile;
-        
+        PersistentArray<PlacedTile> newTiles =
+                placedTiles.with(occupantTile.pos().packed(), occupantTile);
+
         ZonePartitions.Builder newPartitions = 
                 new ZonePartitions.Builder(zonePartitions);
         newPartitions.addInitialOccupant(
@@ -391,8 +521,14 @@ public final class Board {
                 occupant.kind(),
                 occupantTile.zoneWithId(occupant.zoneId()));
 
-        return new Board(newTiles, index,
-                newPartitions.build(), cancelledAnimals());
+        int[] newCounts = occupantCounts.clone();
+        if (occupantTile.placer() != null)
+            newCounts[counterIndex(occupantTile.placer(), occupant.kind())]++;
+
+        ZonePartitions builtPartitions = newPartitions.build();
+        return new Board(newTiles, index, tileIndexes, builtPartitions,
+                cancelledAnimals(), insertionPositions, occupants.with(occupant), newCounts,
+                unoccupiedPotentialOccupants(lastPlacedTile(), builtPartitions));
     }
 
     /**
@@ -404,10 +540,10 @@ public final class Board {
      * @return the new board without the occupant
      */
     public Board withoutOccupant(Occupant occupant) {
-        PlacedTile[] newTiles = placedTiles.clone();
-        PlacedTile occupantTile = tileWithId(
-                Zone.tileId(occupant.zoneId())).withNoOccupant();
-        newTiles[indexFromPosition(occupantTile.pos())] = occupantTile;
+        PlacedTile occupiedTile = tileWithId(Zone.tileId(occupant.zoneId()));
+        PlacedTile occupantTile = occupiedTile.withNoOccupant();
+        PersistentArray<PlacedTile> newTiles =
+                placedTiles.with(occupantTile.pos().packed(), occupantTile);
 
         ZonePartitions.Builder newPartitions =
                 new ZonePartitions.Builder(zonePartitions);
@@ -415,8 +551,18 @@ public final class Board {
                 occupantTile.placer(),
                 occupantTile.zoneWithId(occupant.zoneId()));
 
-        return new Board(newTiles, index,
-                newPartitions.build(), cancelledAnimals());
+        int[] newCounts = occupantCounts.clone();
+        OccupantSet newOccupants = occupants;
+        if (occupiedTile.occupant() != null) {
+            newOccupants = occupants.without(occupiedTile.occupant());
+            if (occupiedTile.placer() != null)
+                newCounts[counterIndex(occupiedTile.placer(), occupiedTile.occupant().kind())]--;
+        }
+
+        ZonePartitions builtPartitions = newPartitions.build();
+        return new Board(newTiles, index, tileIndexes, builtPartitions,
+                cancelledAnimals(), insertionPositions, newOccupants, newCounts,
+                unoccupiedPotentialOccupants(lastPlacedTile(), builtPartitions));
     }
 
     /**
@@ -432,7 +578,8 @@ public final class Board {
                                              Set<Area<Zone.River>> rivers) {
         ZonePartitions.Builder newPartitions =
                 new ZonePartitions.Builder(zonePartitions);
-        PlacedTile[] newTiles = placedTiles.clone();
+        PersistentArray.Builder<PlacedTile> newTiles =
+                new PersistentArray.Builder<>(placedTiles);
 
         Set<Integer> zoneIds = new HashSet<>();
         for (Area<Zone.Forest> forestArea : forests) {
@@ -445,13 +592,22 @@ public final class Board {
             for (Zone.River river : riverArea.zones())
                 zoneIds.add(river.id());
         }
-        for (int i : index)
-            if (zoneIds.contains(newTiles[i]
-                    .idOfZoneOccupiedBy(Occupant.Kind.PAWN)))
-                newTiles[i] = newTiles[i].withNoOccupant();
+        OccupantSet newOccupants = occupants;
+        int[] newCounts = occupantCounts.clone();
+        for (int i : index) {
+            PlacedTile tile = newTiles.get(i);
+            if (zoneIds.contains(tile.idOfZoneOccupiedBy(Occupant.Kind.PAWN))) {
+                newTiles.set(i, tile.withNoOccupant());
+                newOccupants = newOccupants.without(tile.occupant());
+                if (tile.placer() != null)
+                    newCounts[counterIndex(tile.placer(), Occupant.Kind.PAWN)]--;
+            }
+        }
 
-        return new Board(newTiles, index,
-                newPartitions.build(), cancelledAnimals());
+        ZonePartitions builtPartitions = newPartitions.build();
+        return new Board(newTiles.build(), index, tileIndexes, builtPartitions,
+                cancelledAnimals(), insertionPositions, newOccupants, newCounts,
+                unoccupiedPotentialOccupants(lastPlacedTile(), builtPartitions));
     }
 
     /**
@@ -465,7 +621,112 @@ public final class Board {
     public Board withMoreCancelledAnimals(Set<Animal> newlyCancelledAnimals) {
         Set<Animal> allCancelledAnimals = new HashSet<>(newlyCancelledAnimals);
         allCancelledAnimals.addAll(cancelledAnimals);
-        return new Board(placedTiles, index, zonePartitions, Set.copyOf(allCancelledAnimals));
+        return new Board(placedTiles, index, tileIndexes, zonePartitions,
+                Set.copyOf(allCancelledAnimals), insertionPositions, occupants, occupantCounts,
+                lastTilePotentialOccupants);
+    }
+
+    /**
+     * Returns the board with the given tiles placed in the given order, with their
+     * occupants, and the given cancelled animals. The board is built at once, each
+     * structure being filled in a single builder, instead of building a new board
+     * after each tile. Each tile must be next to a previously placed one (except
+     * the first one), and its sides must match the ones of these tiles.
+     *
+     * @param tiles the placed tiles, in order of their placement
+     * @param cancelledAnimals the cancelled animals
+     * @return the board with the given tiles and cancelled animals
+     * @throws IllegalArgumentException if a tile cannot be placed after the previous ones,
+     *                                  or if one of the occupants cannot be placed
+     */
+    static Board of(List<PlacedTile> tiles, Set<Animal> cancelledAnimals) {
+        PersistentArray.Builder<PlacedTile> placedTiles = new PersistentArray.Builder<>(PersistentArray.empty());
+        PersistentArray.Builder<Integer> tileIndexes = new PersistentArray.Builder<>(PersistentArray.empty());
+        ZonePartitions.Builder partitions = new ZonePartitions.Builder(ZonePartitions.EMPTY);
+        int[] index = new int[tiles.size()];
+        OccupantSet.Builder occupants = new OccupantSet.Builder();
+        int[] occupantCounts = new int[PlayerColor.ALL.size() * OCCUPANT_KINDS];
+
+        for (int i = 0; i < tiles.size(); i++) {
+            PlacedTile tile = tiles.get(i);
+            int position = tile.pos().packed();
+            Preconditions.checkArgument(position != -1
+                    && placedTiles.get(position) == null
+                    && tileIndexes.get(tile.id()) == null);
+
+            partitions.addTile(tile.tile());
+            boolean hasNeighbor = false;
+            for (Direction dir : Direction.ALL) {
+                int neighborPosition = tile.pos().neighbor(dir).packed();
+                PlacedTile neighbor = neighborPosition != -1 ? placedTiles.get(neighborPosition) : null;
+                if (neighbor != null) {
+                    Preconditions.checkArgument(tile.side(dir).isSameKindAs(neighbor.side(dir.opposite())));
+                    partitions.connectSides(tile.side(dir), neighbor.side(dir.opposite()));
+                    hasNeighbor = true;
+                }
+            }
+            Preconditions.checkArgument(i == 0 || hasNeighbor);
+
+            // The occupant is added before the next tiles connect its area to others, as during a game
+            Occupant occupant = tile.occupant();
+            if (occupant != null) {
+                Preconditions.checkArgument(tile.placer() != null);
+                partitions.addInitialOccupant(tile.placer(), occupant.kind(), tile.zoneWithId(occupant.zoneId()));
+                occupants.add(occupant);
+                occupantCounts[counterIndex(tile.placer(), occupant.kind())]++;
+            }
+
+            placedTiles.set(position, tile);
+            tileIndexes.set(tile.id(), position);
+            index[i] = position;
+        }
+
+        // The insertion positions only depend on the final placed tiles
+        PersistentArray<PlacedTile> builtTiles = placedTiles.build();
+        InsertionPositions insertionPositions = InsertionPositions.EMPTY;
+        for (PlacedTile tile : tiles)
+            insertionPositions = insertionPositions.withTileAt(tile, builtTiles);
+
+        ZonePartitions builtPartitions = partitions.build();
+        return new Board(builtTiles, index, tileIndexes.build(), builtPartitions,
+                Set.copyOf(cancelledAnimals), insertionPositions, occupants.build(), occupantCounts,
+                unoccupiedPotentialOccupants(tiles.isEmpty() ? null : tiles.getLast(), builtPartitions));
+    }
+
+    /**
+     * Returns the changes made to the given previous version of the board to get
+     * this one. The tiles placed since then are the ones at the end of the index
+     * of the placed tiles, and the occupants and insertion positions are compared
+     * as sets of bits, so the changes are found without going through the whole board.
+     *
+     * @param previous the previous version of the board
+     * @return the changes from the previous version of the board to this one
+     * @throws IllegalArgumentException if the board is not a later version of the previous one
+     */
+    public Diff diffFrom(Board previous) {
+        int previousCount = previous.index.length;
+        Preconditions.checkArgument(previousCount <= index.length
+                && (previousCount == 0 || sameTile(
+                previous.placedTiles.get(previous.index[previousCount - 1]),
+                placedTiles.get(index[previousCount - 1]))));
+
+        List<PlacedTile> newTiles = new ArrayList<>(index.length - previousCount);
+        for (int i = previousCount; i < index.length; i++)
+            newTiles.add(placedTiles.get(index[i]));
+
+        Set<Animal> newlyCancelledAnimals = new HashSet<>();
+        if (cancelledAnimals != previous.cancelledAnimals)
+            for (Animal animal : cancelledAnimals)
+                if (!previous.cancelledAnimals.contains(animal))
+                    newlyCancelledAnimals.add(animal);
+
+        return new Diff(
+                newTiles,
+                occupants.minus(previous.occupants),
+                previous.occupants.minus(occupants),
+                newlyCancelledAnimals,
+                insertionPositions.minus(previous.insertionPositions),
+                previous.insertionPositions.minus(insertionPositions));
     }
 
     /**
@@ -478,7 +739,7 @@ public final class Board {
     @Override
     public boolean equals(Object that) {
         return that instanceof Board board
-                && Arrays.equals(placedTiles, board.placedTiles)
+                && placedTiles.equals(board.placedTiles)
                 && Arrays.equals(index, board.index)
                 && zonePartitions.equals(board.zonePartitions)
                 && cancelledAnimals.equals(board.cancelledAnimals);
@@ -492,35 +753,424 @@ public final class Board {
     @Override
     public int hashCode() {
         return Objects.hash(
-                Arrays.hashCode(placedTiles),
+                placedTiles,
                 Arrays.hashCode(index),
                 zonePartitions,
                 cancelledAnimals);
     }
 
     /**
-     * Private function that returns the index of a tile
-     * based on its position on the board. Returns -1 if
-     * the position is out of bounds (reach of the board).
+     * Private function that computes the potential occupants of the last placed
+     * tile whose area is not already occupied in the given partitions. Only the
+     * tile and its placer matter, not its occupant.
+     *
+     * @param lastPlacedTile the last placed tile (null if there is none)
+     * @param partitions the partitions of the zones of the board
+     * @return the potential occupants of the last placed tile in unoccupied areas
+     */
+    private static OccupantSet unoccupiedPotentialOccupants(PlacedTile lastPlacedTile,
+                                                            ZonePartitions partitions) {
+        if (lastPlacedTile == null) return OccupantSet.EMPTY;
+
+        OccupantSet.Builder potentialOccupants = new OccupantSet.Builder();
+        for (Occupant o : lastPlacedTile.potentialOccupants()) {
+            boolean occupied = switch (lastPlacedTile.zoneWithId(o.zoneId())) {
+                case Zone.Meadow meadow
+                        when o.kind() == Occupant.Kind.PAWN ->
+                            partitions.meadows().areaContaining(meadow).isOccupied();
+                case Zone.Forest forest
+                        when o.kind() == Occupant.Kind.PAWN ->
+                            partitions.forests().areaContaining(forest).isOccupied();
+                case Zone.River river
+                        when o.kind() == Occupant.Kind.PAWN ->
+                            partitions.rivers().areaContaining(river).isOccupied();
+                case Zone.Water water
+                        when o.kind() == Occupant.Kind.HUT ->
+                            partitions.riverSystems().areaContaining(water).isOccupied();
+                default -> false;
+            };
+            if (!occupied) potentialOccupants.add(o);
+        }
+        return potentialOccupants.build();
+    }
+
+    /**
+     * Private function that checks whether two placed tiles are the same tile
+     * placed at the same position with the same rotation, their occupant
+     * being able to change between two versions of the board.
+     *
+     * @param tile the first placed tile
+     * @param that the second placed tile (null if there is none)
+     * @return true if the tiles are the same once placed, false otherwise
+     */
+    private static boolean sameTile(PlacedTile tile, PlacedTile that) {
+        return that != null
+                && tile.tile().equals(that.tile())
+                && tile.pos().equals(that.pos())
+                && tile.rotation() == that.rotation();
+    }
+
+    /**
+     * Private function that returns the index of the number of
+     * occupants of the given kind of the given player in the counts.
      *
-     * @param pos position of the tile
-     * @return the index of the tile
+     * @param player the player placing the occupants
+     * @param occupantKind the kind of the occupants
+     * @return the index of the count
      */
-    private int indexFromPosition(Pos pos) {
-        if (Math.abs(pos.x()) > REACH || Math.abs(pos.y()) > REACH)
-            return -1;
-        return (pos.y() + REACH) * (2 * REACH + 1) + (pos.x() + REACH);
+    private static int counterIndex(PlayerColor player, Occupant.Kind occupantKind) {
+        return player.ordinal() * OCCUPANT_KINDS + occupantKind.ordinal();
     }
 
     /**
-     * Private function that returns the position of a tile
-     * on the board from its index in placed tiles.
+     * Private function that returns the code of the kind of a tile side.
      *
-     * @param index index of the tile
-     * @return the position of the tile
+     * @param side the tile side
+     * @return the code of the kind of the side
+     */
+    private static int sideCode(TileSide side) {
+        return switch (side) {
+            case TileSide.Forest forest -> FOREST_SIDE;
+            case TileSide.Meadow meadow -> MEADOW_SIDE;
+            case TileSide.River river -> RIVER_SIDE;
+        };
+    }
+
+    /**
+     * Private function that returns the signature of a tile, which packs
+     * the codes of the kinds of its sides, in order of their directions.
+     *
+     * @param tile the tile
+     * @return the signature of the tile (not rotated)
+     */
+    private static int signature(Tile tile) {
+        return sideCode(tile.n())
+                | sideCode(tile.e()) << SIDE_BITS
+                | sideCode(tile.s()) << 2 * SIDE_BITS
+                | sideCode(tile.w()) << 3 * SIDE_BITS;
+    }
+
+    /**
+     * Private function that returns the signature of a tile
+     * after it was rotated by a number of quarter turns (clockwise).
+     *
+     * @param signature the signature of the tile
+     * @param quarterTurns the number of quarter turns
+     * @return the signature of the rotated tile
+     */
+    private static int rotated(int signature, int quarterTurns) {
+        int shift = quarterTurns * SIDE_BITS;
+        return (signature << shift | signature >>> Direction.COUNT * SIDE_BITS - shift)
+                & SIGNATURE_MASK;
+    }
+
+    /**
+     * Private function that checks whether a tile with the given signature fits
+     * an insertion position with the given constraint, which has the code of the
+     * side of the neighbor in every direction where there is one, and 0 elsewhere.
+     *
+     * @param signature the signature of the rotated tile
+     * @param constraint the constraint of the insertion position
+     * @return true if all constrained sides of the tile are of the required kind
+     */
+    private static boolean fits(int signature, int constraint) {
+        int constrainedSides = (constraint | constraint >> 1) & LOW_SIDE_BITS;
+        return ((signature ^ constraint) & constrainedSides * 0b11) == 0;
+    }
+
+    /**
+     * Represents the changes made to a version of the board to get a later one.
+     *
+     * @param placedTiles the tiles placed since the previous version, in order of their placement
+     * @param addedOccupants the occupants added since the previous version
+     * @param removedOccupants the occupants removed since the previous version
+     * @param newlyCancelledAnimals the animals cancelled since the previous version
+     * @param addedInsertionPositions the new insertion positions, sorted by
+     *                                their x-coordinate first, then by their y-coordinate
+     * @param removedInsertionPositions the positions that are no longer insertion positions,
+     *                                  sorted the same way
+     */
+    public record Diff(List<PlacedTile> placedTiles,
+                       Set<Occupant> addedOccupants,
+                       Set<Occupant> removedOccupants,
+                       Set<Animal> newlyCancelledAnimals,
+                       List<Pos> addedInsertionPositions,
+                       List<Pos> removedInsertionPositions) {
+
+        /**
+         * Immutable constructor that copies the lists and sets of the changes.
+         */
+        public Diff {
+            placedTiles = List.copyOf(placedTiles);
+            addedOccupants = Set.copyOf(addedOccupants);
+            removedOccupants = Set.copyOf(removedOccupants);
+            newlyCancelledAnimals = Set.copyOf(newlyCancelledAnimals);
+            addedInsertionPositions = List.copyOf(addedInsertionPositions);
+            removedInsertionPositions = List.copyOf(removedInsertionPositions);
+        }
+
+        /**
+         * Checks if nothing changed between the two versions of the board.
+         *
+         * @return true if there is no change, false otherwise
+         */
+        public boolean isEmpty() {
+            return placedTiles.isEmpty()
+                    && addedOccupants.isEmpty()
+                    && removedOccupants.isEmpty()
+                    && newlyCancelledAnimals.isEmpty()
+                    && addedInsertionPositions.isEmpty()
+                    && removedInsertionPositions.isEmpty();
+        }
+    }
+
+    /**
+     * Private immutable set of insertion positions of a board, stored as a set
+     * of bits where each bit corresponds to a position in the sorted order
+     * of positions (by x-coordinate, then by y-coordinate). The constraint that
+     * the neighbors put on each insertion position is kept in the same order.
      */
-    private Pos positionFromIndex(int index) {
-        return new Pos(index % (2 * REACH + 1) - REACH,
-                index / (2 * REACH + 1) - REACH);
+    private static final class InsertionPositions extends AbstractSet<Pos> {
+
+        /**
+         * The set without any insertion position (of the empty board)
+         */
+        private static final InsertionPositions EMPTY = new InsertionPositions(
+                new long[(BOARD_SIZE + Long.SIZE - 1) / Long.SIZE], new byte[0]);
+
+        // Bits of the insertion positions in sorted order
+        private final long[] bits;
+
+        // Constraints of the insertion positions in sorted order
+        private final byte[] constraints;
+
+        // Sorted list view of the insertion positions
+        private final List<Pos> sorted = new SortedInsertionPositions();
+
+        /**
+         * Private constructor that takes the bits and constraints as they are.
+         *
+         * @param bits the bits of the insertion positions
+         * @param constraints the constraints of the insertion positions
+         */
+        private InsertionPositions(long[] bits, byte[] constraints) {
+            this.bits = bits;
+            this.constraints = constraints;
+        }
+
+        /**
+         * Returns the insertion positions after a tile has been placed:
+         * its position is no longer an insertion position, but its empty
+         * neighbors on the board are, and they must match its sides.
+         *
+         * @param tile the placed tile
+         * @param placedTiles the placed tiles of the board (with the new tile)
+         * @return the new insertion positions
+         */
+        private InsertionPositions withTileAt(PlacedTile tile, PersistentArray<PlacedTile> placedTiles) {
+            long[] newBits = bits.clone();
+            int placed = tile.pos().packed();
+            newBits[placed / Long.SIZE] &= ~(1L << placed);
+
+            // Sorted index of each neighbor and the constraint the tile puts on it
+            int[] neighborIndexes = new int[Direction.COUNT];
+            int[] neighborConstraints = new int[Direction.COUNT];
+            for (Direction direction : Direction.ALL) {
+                Pos neighbor = tile.pos().neighbor(direction);
+                int neighborIndex = neighbor.packed();
+                if (neighborIndex != -1 && placedTiles.get(neighborIndex) == null)
+                    newBits[neighborIndex / Long.SIZE] |= 1L << neighborIndex;
+
+                neighborIndexes[direction.ordinal()] = neighborIndex;
+                neighborConstraints[direction.ordinal()] = sideCode(tile.side(direction))
+                        << direction.opposite().ordinal() * SIDE_BITS;
+            }
+
+            // Goes through the old and new insertion positions together, in sorted order
+            int newSize = 0;
+            for (long word : newBits)
+                newSize += Long.bitCount(word);
+            byte[] newConstraints = new byte[newSize];
+            int oldRank = 0;
+            int newRank = 0;
+            for (int word = 0; word < bits.length; word++) {
+                long remaining = bits[word] | newBits[word];
+                while (remaining != 0) {
+                    int sortedIndex = word * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+                    long bit = remaining & -remaining;
+                    remaining ^= bit;
+
+                    int constraint = (bits[word] & bit) != 0 ? constraints[oldRank++] : 0;
+                    if ((newBits[word] & bit) != 0) {
+                        for (int direction = 0; direction < Direction.COUNT; direction++)
+                            if (neighborIndexes[direction] == sortedIndex)
+                                constraint |= neighborConstraints[direction];
+                        newConstraints[newRank++] = (byte) constraint;
+                    }
+                }
+            }
+            return new InsertionPositions(newBits, newConstraints);
+        }
+
+        /**
+         * Returns the insertion positions of this set that are not in the given one.
+         *
+         * @param that the insertion positions to leave out
+         * @return the sorted list of the insertion positions that are not in the given set
+         */
+        private List<Pos> minus(InsertionPositions that) {
+            List<Pos> positions = new ArrayList<>();
+            for (int word = 0; word < bits.length; word++) {
+                long remaining = bits[word] & ~that.bits[word];
+                while (remaining != 0) {
+                    positions.add(Pos.unpacked(word * Long.SIZE + Long.numberOfTrailingZeros(remaining)));
+                    remaining &= remaining - 1;
+                }
+            }
+            return positions;
+        }
+
+        /**
+         * Returns the constraint of an insertion position.
+         *
+         * @param sortedIndex the sorted index of the insertion position
+         * @return the constraint of the insertion position
+         */
+        private int constraint(int sortedIndex) {
+            return constraints[rank(sortedIndex)] & SIGNATURE_MASK;
+        }
+
+        /**
+         * Checks whether the given object is an insertion position.
+         *
+         * @param o the object to look for
+         * @return true if the object is an insertion position, false otherwise
+         */
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Pos pos)) return false;
+            int sortedIndex = pos.packed();
+            return sortedIndex != -1 && (bits[sortedIndex / Long.SIZE] & 1L << sortedIndex) != 0;
+        }
+
+        /**
+         * Returns the number of insertion positions.
+         *
+         * @return the number of insertion positions
+         */
+        @Override
+        public int size() {
+            return constraints.length;
+        }
+
+        /**
+         * Returns an iterator over the insertion positions in sorted order.
+         *
+         * @return the iterator over the insertion positions
+         */
+        @Override
+        public Iterator<Pos> iterator() {
+            return sorted.iterator();
+        }
+
+        /**
+         * Private function that returns the sorted index of the insertion
+         * position that has the given number of insertion positions before it.
+         *
+         * @param rank the number of insertion positions before the position
+         * @return the sorted index of the position
+         */
+        private int select(int rank) {
+            for (int word = 0; word < bits.length; word++) {
+                long remaining = bits[word];
+                int count = Long.bitCount(remaining);
+                if (rank < count) {
+                    for (; rank > 0; rank--)
+                        remaining &= remaining - 1;
+                    return word * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+                }
+                rank -= count;
+            }
+            throw new IndexOutOfBoundsException();
+        }
+
+        /**
+         * Private function that returns the number of insertion
+         * positions before the given sorted index.
+         *
+         * @param sortedIndex the sorted index of a position
+         * @return the number of insertion positions before it
+         */
+        private int rank(int sortedIndex) {
+            int rank = 0;
+            for (int word = 0; word < sortedIndex / Long.SIZE; word++)
+                rank += Long.bitCount(bits[word]);
+            return rank + Long.bitCount(
+                    bits[sortedIndex / Long.SIZE] & ((1L << sortedIndex) - 1));
+        }
+
+        /**
+         * Private sorted list view of the insertion positions.
+         */
+        private final class SortedInsertionPositions extends AbstractList<Pos> implements RandomAccess {
+
+            /**
+             * Returns the insertion position at the given index.
+             *
+             * @param index the index of the position in the list
+             * @return the position at the given index
+             * @throws IndexOutOfBoundsException if the index is out of bounds
+             */
+            @Override
+            public Pos get(int index) {
+                Objects.checkIndex(index, size());
+                return Pos.unpacked(select(index));
+            }
+
+            /**
+             * Returns the index of the given position in the list.
+             *
+             * @param o the position to look for
+             * @return the index of the position, or -1 if it is not an insertion position
+             */
+            @Override
+            public int indexOf(Object o) {
+                if (!InsertionPositions.this.contains(o)) return -1;
+                return rank(((Pos) o).packed());
+            }
+
+            /**
+             * Returns the last index of the given position in the list,
+             * which is its only index since the positions are distinct.
+             *
+             * @param o the position to look for
+             * @return the index of the position, or -1 if it is not an insertion position
+             */
+            @Override
+            public int lastIndexOf(Object o) {
+                return indexOf(o);
+            }
+
+            /**
+             * Checks whether the given object is an insertion position.
+             *
+             * @param o the object to look for
+             * @return true if the object is an insertion position, false otherwise
+             */
+            @Override
+            public boolean contains(Object o) {
+                return InsertionPositions.this.contains(o);
+            }
+
+            /**
+             * Returns the number of insertion positions.
+             *
+             * @return the number of insertion positions
+             */
+            @Override
+            public int size() {
+                return constraints.length;
+            }
+        }
     }
 }
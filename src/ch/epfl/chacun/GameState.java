@@ -114,35 +114,28 @@ public record GameState(List<PlayerColor> players,
      * Returns the potential occupants for the last placed tile.
      * Makes sure that the player has free occupants of the given kind in hand
      * and that the area of a potential occupant is not already occupied.
+     * The occupants in unoccupied areas are kept by the board, so that only the
+     * occupants the player has no free ones of are left out here, which does not
+     * create any set unless the player has no pawn or no hut left.
      *
-     * @return the potential occupants for the last placed tile
+     * @return the unmodifiable set of potential occupants for the last placed tile,
+     *         ordered by their zone id
      */
     public Set<Occupant> lastTilePotentialOccupants() {
         Preconditions.checkArgument(board.lastPlacedTile() != null);
-        Set<Occupant> potentialOccupants = board.lastPlacedTile().potentialOccupants();
-
-        // Remove occupants if there are no free ones left of a given kind
-        potentialOccupants.removeIf(
-                o -> freeOccupantsCount(currentPlayer(), o.kind()) == 0);
-
-        // Remove occupants if the area is already occupied
-        potentialOccupants.removeIf(
-                o -> switch (board.lastPlacedTile().zoneWithId(o.zoneId())) {
-                        case Zone.Meadow meadow
-                                when o.kind() == Occupant.Kind.PAWN ->
-                                    board.meadowArea(meadow).isOccupied();
-                        case Zone.Forest forest
-                                when o.kind() == Occupant.Kind.PAWN ->
-                                    board.forestArea(forest).isOccupied();
-                        case Zone.River river
-                                when o.kind() == Occupant.Kind.PAWN ->
-                                    board.riverArea(river).isOccupied();
-                        case Zone.Water water
-                                when o.kind() == Occupant.Kind.HUT ->
-                                    board.riverSystemArea(water).isOccupied();
-                        default -> false;
-                });
-        return potentialOccupants;
+        Set<Occupant> unoccupied = board.lastTilePotentialOccupants();
+        if (unoccupied.isEmpty()) return unoccupied;
+
+        boolean freePawns = freeOccupantsCount(currentPlayer(), Occupant.Kind.PAWN) > 0;
+        boolean freeHuts = freeOccupantsCount(currentPlayer(), Occupant.Kind.HUT) > 0;
+        if (freePawns && freeHuts) return unoccupied;
+
+        // Skip occupants if there are no free ones left of a given kind
+        OccupantSet.Builder potentialOccupants = new OccupantSet.Builder();
+        for (Occupant o : unoccupied)
+            if (o.kind() == Occupant.Kind.PAWN ? freePawns : freeHuts)
+                potentialOccupants.add(o);
+        return potentialOccupants.build();
     }
 
     /**
@@ -250,6 +243,19 @@ public record GameState(List<PlayerColor> players,
                 .withTurnFinished();
     }
 
+    /**
+     * Returns the changes made to the given previous game state to get this one,
+     * which are the changes of the board and the messages added to the message board.
+     *
+     * @param previous the previous game state
+     * @return the changes from the previous game state to this one
+     * @throws IllegalArgumentException if the game state is not a later version of the previous one
+     */
+    public Diff diffFrom(GameState previous) {
+        return new Diff(board.diffFrom(previous.board),
+                messageBoard.messagesAddedSince(previous.messageBoard));
+    }
+
     /**
      * Private methode that returns a new game state with the turn finished
      * if the occupation is impossible either because the player has no free
@@ -373,12 +379,13 @@ public record GameState(List<PlayerColor> players,
         // Count the final points and determine the winners
         int maxPoints;
         Set<PlayerColor> winners;
-        if (newMessageBoard.points().values().isEmpty()) {
+        Map<PlayerColor, Integer> points = newMessageBoard.points();
+        if (points.isEmpty()) {
             maxPoints = 0;
             winners = new HashSet<>(players);
         } else {
-            maxPoints = Collections.max(newMessageBoard.points().values());
-            winners = newMessageBoard.points().entrySet().stream()
+            maxPoints = Collections.max(points.values());
+            winners = points.entrySet().stream()
                     .filter(entry -> entry.getValue() == maxPoints)
                     .map(Map.Entry::getKey)
                     .collect(Collectors.toSet());
@@ -388,4 +395,32 @@ public record GameState(List<PlayerColor> players,
         return new GameState(players, tileDecks, null,
                 board, Action.END_GAME, newMessageBoard);
     }
+
+    /**
+     * Represents the changes made to a game state to get a later one.
+     *
+     * @param board the changes of the board
+     * @param newMessages the messages added to the message board, in order
+     */
+    public record Diff(Board.Diff board, List<MessageBoard.Message> newMessages) {
+
+        /**
+         * Immutable constructor that copies the list of new messages.
+         *
+         * @throws NullPointerException if the changes of the board are null
+         */
+        public Diff {
+            Objects.requireNonNull(board);
+            newMessages = List.copyOf(newMessages);
+        }
+
+        /**
+         * Checks if nothing changed on the board and the message board.
+         *
+         * @return true if there is no change, false otherwise
+         */
+        public boolean isEmpty() {
+            return board.isEmpty() && newMessages.isEmpty();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,259 @@
+package ch.epfl.chacun;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Encodes and decodes snapshots of game states in a compact binary format,
+ * so that a game state is restored without replaying the actions of its game.
+ * A snapshot starts with a magic number and the version of its format, followed by:
+ * the players, the ids of the tiles of each deck, the tile to place, the next action,
+ * the placed tiles in order of their placement (with their position, rotation, placer
+ * and occupant), the ids of the cancelled animals and the messages of the message board.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class GameStateCodec {
+
+    /**
+     * The magic number at the start of every snapshot ("CHCN")
+     */
+    private static final int MAGIC = 0x4348434E;
+
+    /**
+     * The version of the format of the snapshots
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The code of a missing tile, player or occupant
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The kinds of the decks of tiles, in the order they are encoded
+     */
+    private static final List<Tile.Kind> DECK_KINDS =
+            List.of(Tile.Kind.START, Tile.Kind.NORMAL, Tile.Kind.MENHIR);
+
+    /**
+     * The tiles of the game, indexed by their id
+     */
+    private static final Tile[] TILES_BY_ID = tilesById();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private GameStateCodec() {}
+
+    /**
+     * Encodes the given game state into a snapshot.
+     *
+     * @param state the game state to encode
+     * @return the bytes of the snapshot
+     */
+    public static byte[] encode(GameState state) {
+        Board board = state.board();
+        List<PlacedTile> placedTiles = board.placedTilesInOrder();
+        List<MessageBoard.Message> messages = state.messageBoard().messages();
+
+        List<byte[]> texts = new ArrayList<>(messages.size());
+        int size = Integer.BYTES + 2 * Byte.BYTES
+                + Byte.BYTES + state.players().size()
+                + DECK_KINDS.size() * Byte.BYTES + Byte.BYTES
+                + Byte.BYTES + placedTiles.size() * (Short.BYTES + 3 * Byte.BYTES + Short.BYTES)
+                + Short.BYTES + board.cancelledAnimals().size() * Short.BYTES
+                + Short.BYTES;
+        for (Tile.Kind kind : DECK_KINDS)
+            size += state.tileDecks().deckSize(kind);
+        for (MessageBoard.Message message : messages) {
+            byte[] text = message.text().getBytes(StandardCharsets.UTF_8);
+            texts.add(text);
+            size += Character.BYTES + text.length + Integer.BYTES
+                    + 2 * Byte.BYTES + message.tileIds().size();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).put((byte) VERSION);
+
+        buffer.put((byte) state.players().size());
+        for (PlayerColor player : state.players())
+            buffer.put((byte) player.ordinal());
+
+        for (Tile.Kind kind : DECK_KINDS) {
+            List<Tile> deck = deck(state.tileDecks(), kind);
+            buffer.put((byte) deck.size());
+            for (Tile tile : deck)
+                buffer.put((byte) tile.id());
+        }
+        buffer.put((byte) (state.tileToPlace() != null ? state.tileToPlace().id() : NONE));
+        buffer.put((byte) state.nextAction().ordinal());
+
+        buffer.put((byte) placedTiles.size());
+        for (PlacedTile tile : placedTiles) {
+            buffer.putShort((short) tile.pos().packed())
+                    .put((byte) tile.id())
+                    .put((byte) tile.rotation().ordinal())
+                    .put((byte) (tile.placer() != null ? tile.placer().ordinal() : NONE))
+                    .putShort((short) (tile.occupant() != null ? tile.occupant().packed() : NONE));
+        }
+
+        buffer.putShort((short) board.cancelledAnimals().size());
+        for (Animal animal : board.cancelledAnimals())
+            buffer.putShort((short) animal.id());
+
+        buffer.putShort((short) messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            MessageBoard.Message message = messages.get(i);
+            buffer.putChar((char) texts.get(i).length).put(texts.get(i));
+            buffer.putInt(message.points());
+            int scorers = 0;
+            for (PlayerColor scorer : message.scorers())
+                scorers |= 1 << scorer.ordinal();
+            buffer.put((byte) scorers);
+            buffer.put((byte) message.tileIds().size());
+            for (int tileId : message.tileIds())
+                buffer.put((byte) tileId);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes the game state of the given snapshot. The board is rebuilt at once
+     * from its placed tiles, with its partitions and insertion positions.
+     *
+     * @param snapshot the bytes of the snapshot
+     * @param textMaker the text maker of the message board of the game state
+     * @return the decoded game state
+     * @throws IllegalArgumentException if the bytes are not a valid snapshot
+     *                                  of the current version of the format
+     */
+    public static GameState decode(byte[] snapshot, TextMaker textMaker) {
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+        try {
+            Preconditions.checkArgument(buffer.getInt() == MAGIC && buffer.get() == VERSION);
+
+            int playerCount = Byte.toUnsignedInt(buffer.get());
+            Preconditions.checkArgument(playerCount <= PlayerColor.ALL.size());
+            List<PlayerColor> players = new ArrayList<>(playerCount);
+            for (int i = 0; i < playerCount; i++)
+                players.add(PlayerColor.ALL.get(buffer.get()));
+
+            List<List<Tile>> decks = new ArrayList<>(DECK_KINDS.size());
+            for (int d = 0; d < DECK_KINDS.size(); d++) {
+                Tile[] deck = new Tile[Byte.toUnsignedInt(buffer.get())];
+                for (int i = 0; i < deck.length; i++)
+                    deck[i] = tile(buffer.get());
+                decks.add(Arrays.asList(deck));
+            }
+            TileDecks tileDecks = new TileDecks(decks.get(0), decks.get(1), decks.get(2));
+            int tileToPlaceId = buffer.get();
+            Tile tileToPlace = tileToPlaceId != NONE ? tile(tileToPlaceId) : null;
+            GameState.Action nextAction = GameState.Action.values()[buffer.get()];
+
+            PlacedTile[] placedTiles = new PlacedTile[Byte.toUnsignedInt(buffer.get())];
+            for (int i = 0; i < placedTiles.length; i++) {
+                Pos pos = Pos.unpacked(buffer.getShort());
+                Tile tile = tile(buffer.get());
+                Rotation rotation = Rotation.ALL.get(buffer.get());
+                int placer = buffer.get();
+                int occupant = buffer.getShort();
+                placedTiles[i] = new PlacedTile(tile,
+                        placer != NONE ? PlayerColor.ALL.get(placer) : null,
+                        rotation, pos,
+                        occupant != NONE ? Occupant.unpacked(occupant) : null);
+            }
+
+            Set<Animal> cancelledAnimals = new HashSet<>();
+            for (int i = Short.toUnsignedInt(buffer.getShort()); i > 0; i--)
+                cancelledAnimals.add(animal(buffer.getShort()));
+
+            List<MessageBoard.Message> messages = new ArrayList<>();
+            for (int i = Short.toUnsignedInt(buffer.getShort()); i > 0; i--) {
+                byte[] text = new byte[buffer.getChar()];
+                buffer.get(text);
+                int points = buffer.getInt();
+                int scorerBits = buffer.get();
+                Set<PlayerColor> scorers = EnumSet.noneOf(PlayerColor.class);
+                for (PlayerColor player : PlayerColor.ALL)
+                    if ((scorerBits & 1 << player.ordinal()) != 0)
+                        scorers.add(player);
+                Set<Integer> tileIds = new HashSet<>();
+                for (int j = Byte.toUnsignedInt(buffer.get()); j > 0; j--)
+                    tileIds.add(tile(buffer.get()).id());
+                messages.add(new MessageBoard.Message(
+                        new String(text, StandardCharsets.UTF_8), points, scorers, tileIds));
+            }
+            Preconditions.checkArgument(!buffer.hasRemaining());
+
+            return new GameState(players, tileDecks, tileToPlace,
+                    Board.of(Arrays.asList(placedTiles), cancelledAnimals),
+                    nextAction, new MessageBoard(textMaker, messages));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Private function that returns the deck of tiles of the given kind.
+     *
+     * @param tileDecks the decks of tiles
+     * @param kind the kind of the deck
+     * @return the tiles of the deck
+     */
+    private static List<Tile> deck(TileDecks tileDecks, Tile.Kind kind) {
+        return switch (kind) {
+            case START -> tileDecks.startTiles();
+            case NORMAL -> tileDecks.normalTiles();
+            case MENHIR -> tileDecks.menhirTiles();
+        };
+    }
+
+    /**
+     * Private function that returns the tile of the game with the given id.
+     *
+     * @param id the id of the tile
+     * @return the tile with the given id
+     * @throws IllegalArgumentException if there is no tile with the given id
+     */
+    private static Tile tile(int id) {
+        Preconditions.checkArgument(id >= 0 && id < TILES_BY_ID.length && TILES_BY_ID[id] != null);
+        return TILES_BY_ID[id];
+    }
+
+    /**
+     * Private function that returns the animal with the given id,
+     * found in the meadows of the tile the animal is on.
+     *
+     * @param id the id of the animal
+     * @return the animal with the given id
+     * @throws IllegalArgumentException if there is no animal with the given id
+     */
+    private static Animal animal(int id) {
+        Preconditions.checkArgument(id >= 0);
+        for (Zone zone : tile(Zone.tileId(id / 10)).zones())
+            if (zone instanceof Zone.Meadow meadow)
+                for (Animal animal : meadow.animals())
+                    if (animal.id() == id) return animal;
+        throw new IllegalArgumentException();
+    }
+
+    /**
+     * Private function that returns the tiles of the game indexed by their id.
+     *
+     * @return the tiles of the game, indexed by their id
+     */
+    private static Tile[] tilesById() {
+        int maxId = -1;
+        for (Tile tile : Tiles.TILES)
+            maxId = Math.max(maxId, tile.id());
+
+        Tile[] tiles = new Tile[maxId + 1];
+        for (Tile tile : Tiles.TILES)
+            tiles[tile.id()] = tile;
+        return tiles;
+    }
+}
@@ -0,0 +1,174 @@
+package ch.epfl.chacun;
+
+import ch.epfl.chacun.ActionEncoder.StateAction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Lists the legal moves of the current player of a game state, each with
+ * its encoding as an action, so that the AIs, the user interface and the
+ * encoded actions exchanged between players all use the same enumeration.
+ * The moves are not kept: the callers that ask for the moves of the same state
+ * several times (like the nodes of a tree search) keep the list themselves.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class LegalMoves {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private LegalMoves() {}
+
+    /**
+     * Returns all legal moves of the current player of the given game state.
+     * The placements of the tile to place are in the order of the sorted insertion
+     * positions and then of the rotations. The occupants that can be placed or
+     * retaken are sorted by the id of their zone (then by kind), followed by
+     * the move that places or retakes no occupant.
+     *
+     * @param state the game state
+     * @return the unmodifiable list of legal moves, which is empty if
+     *         the game has not started yet or has ended
+     */
+    public static List<Move> of(GameState state) {
+        return switch (state.nextAction()) {
+            case PLACE_TILE -> placements(state);
+            case OCCUPY_TILE -> occupations(state);
+            case RETAKE_PAWN -> removals(state);
+            case START_GAME, END_GAME -> List.of();
+        };
+    }
+
+    /**
+     * Returns the legal move of the current player that is encoded by the given action.
+     *
+     * @param state the game state
+     * @param action the encoded action
+     * @return the move encoded by the action, or null if it is not a legal move
+     */
+    public static Move withAction(GameState state, String action) {
+        for (Move move : of(state))
+            if (move.action().equals(action)) return move;
+        return null;
+    }
+
+    /**
+     * Returns the legal placement of the tile to place at the given
+     * position with the given rotation, if there is one.
+     *
+     * @param state the game state
+     * @param pos the position of the tile
+     * @param rotation the rotation of the tile
+     * @return the placement, or null if the tile cannot be placed this way
+     *         or if the next action is not to place a tile
+     */
+    public static Move placement(GameState state, Pos pos, Rotation rotation) {
+        if (state.nextAction() != GameState.Action.PLACE_TILE) return null;
+        Board board = state.board();
+        int rank = board.sortedInsertionPositions().indexOf(pos);
+        if (rank < 0 || !board.fitsInsertionPosition(rank, state.tileToPlace(), rotation))
+            return null;
+        return new Move(
+                new PlacedTile(state.tileToPlace(), state.currentPlayer(), rotation, pos),
+                null,
+                ActionEncoder.encodePlacement(rank, rotation));
+    }
+
+    /**
+     * Private function that lists the legal placements of the tile to place.
+     * Only the placements that fit are created.
+     *
+     * @param state the game state
+     * @return the legal placements
+     */
+    private static List<Move> placements(GameState state) {
+        Board board = state.board();
+        Tile tile = state.tileToPlace();
+        List<Pos> positions = board.sortedInsertionPositions();
+        List<Move> moves = new ArrayList<>();
+        for (int rank = 0; rank < positions.size(); rank++)
+            for (Rotation rotation : Rotation.ALL)
+                if (board.fitsInsertionPosition(rank, tile, rotation))
+                    moves.add(new Move(
+                            new PlacedTile(tile, state.currentPlayer(), rotation, positions.get(rank)),
+                            null,
+                            ActionEncoder.encodePlacement(rank, rotation)));
+        return List.copyOf(moves);
+    }
+
+    /**
+     * Private function that lists the legal occupations of the last placed tile.
+     *
+     * @param state the game state
+     * @return the legal occupations, followed by the one with no occupant
+     */
+    private static List<Move> occupations(GameState state) {
+        // The potential occupants are already ordered by their zone id, then by their kind
+        List<Move> moves = new ArrayList<>();
+        for (Occupant occupant : state.lastTilePotentialOccupants())
+            moves.add(new Move(null, occupant, ActionEncoder.encodeOccupant(occupant)));
+        moves.add(new Move(null, null, ActionEncoder.encodeOccupant(null)));
+        return List.copyOf(moves);
+    }
+
+    /**
+     * Private function that lists the legal removals of a pawn of the current player,
+     * encoded with the index of the pawn among all pawns of the board.
+     *
+     * @param state the game state
+     * @return the legal removals, followed by the one with no pawn
+     */
+    private static List<Move> removals(GameState state) {
+        List<Occupant> pawns = ActionEncoder.sortedPawns(state);
+        List<Move> moves = new ArrayList<>();
+        for (int i = 0; i < pawns.size(); i++) {
+            Occupant pawn = pawns.get(i);
+            if (state.board().tileWithId(Zone.tileId(pawn.zoneId())).placer() == state.currentPlayer())
+                moves.add(new Move(null, pawn, ActionEncoder.encodePawnIndex(i)));
+        }
+        moves.add(new Move(null, null, ActionEncoder.encodeOccupant(null)));
+        return List.copyOf(moves);
+    }
+
+    /**
+     * Represents a legal move, that is the placement of a tile, or the occupant
+     * placed on the last placed tile or retaken (null if none), with its encoding.
+     *
+     * @param tile the placed tile (null if the move is not a placement)
+     * @param occupant the occupant placed or retaken (can be null)
+     * @param action the encoded action of the move
+     */
+    public record Move(PlacedTile tile, Occupant occupant, String action) {
+
+        /**
+         * Compact constructor that verifies that the action exists.
+         *
+         * @throws NullPointerException if the action is null
+         */
+        public Move {
+            Objects.requireNonNull(action);
+        }
+
+        /**
+         * Plays the move on the game state it is legal in,
+         * without checking again that it is legal.
+         *
+         * @param state the game state the move was listed for
+         * @return the new game state and the encoded action
+         * @throws IllegalArgumentException if the game has not started yet or has ended
+         */
+        public StateAction applyTo(GameState state) {
+            GameState next = switch (state.nextAction()) {
+                case PLACE_TILE -> state.withPlacedTile(tile);
+                case OCCUPY_TILE -> state.withNewOccupant(occupant);
+                case RETAKE_PAWN -> state.withOccupantRemoved(occupant);
+                case START_GAME, END_GAME -> throw new IllegalArgumentException();
+            };
+            return new StateAction(next, action);
+        }
+    }
+}
@@ -1,41 +1,163 @@
 package ch.epfl.chacun;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a message board that keeps track of
  * the messages that are displayed to the players.
+ * The messages are kept in an append-only log shared between a message board
+ * and the message boards built from it, and the points of each player are
+ * tallied as messages are added, so that both are done in constant time.
  *
  * @author Alexis Grillet-Aubert (381587)
  * @author Jakub Kliment (380660)
- *
- * @param textMaker creates the text for the message
- * @param messages list of all messages of the message board
  */
-public record MessageBoard(TextMaker textMaker, List<Message> messages) {
+public final class MessageBoard {
+
+    // Text maker creating the text of the messages and messages of the message board
+    private final TextMaker textMaker;
+    private final MessageLog messages;
+
+    // Points of each player indexed by the ordinal of their color,
+    // and bits (by ordinal) of the players that are scorers of a message
+    private final int[] points;
+    private final int scorers;
+
+    /**
+     * Constructor that ensures immutability by making
+     * a defensive copy of the messages and tallies their points.
+     *
+     * @param textMaker creates the text for the message
+     * @param messages list of all messages of the message board
+     */
+    public MessageBoard(TextMaker textMaker, List<Message> messages) {
+        MessageLog log = MessageLog.EMPTY;
+        int[] points = new int[PlayerColor.ALL.size()];
+        int scorers = 0;
+        for (Message message : messages) {
+            log = log.with(message);
+            for (PlayerColor player : message.scorers) {
+                points[player.ordinal()] += message.points;
+                scorers |= 1 << player.ordinal();
+            }
+        }
+        this.textMaker = textMaker;
+        this.messages = log;
+        this.points = points;
+        this.scorers = scorers;
+    }
+
+    /**
+     * Private constructor that takes the log and the tally as they are.
+     *
+     * @param textMaker creates the text for the message
+     * @param messages log of all messages of the message board
+     * @param points points of each player by the ordinal of their color
+     * @param scorers bits of the players that are scorers of a message
+     */
+    private MessageBoard(TextMaker textMaker, MessageLog messages, int[] points, int scorers) {
+        this.textMaker = textMaker;
+        this.messages = messages;
+        this.points = points;
+        this.scorers = scorers;
+    }
+
+    /**
+     * Returns the text maker that creates the text of the messages.
+     *
+     * @return the text maker
+     */
+    public TextMaker textMaker() {
+        return textMaker;
+    }
 
     /**
-     * Compact constructor that ensures immutability
-     * by making a defensive copy of the messages.
+     * Returns the messages of the message board.
+     *
+     * @return the unmodifiable list of all messages of the message board
      */
-    public MessageBoard {
-        messages = List.copyOf(messages);
+    public List<Message> messages() {
+        return messages;
     }
 
     /**
-     * Returns the points of each player based on
-     * previous messages in the message board.
+     * Returns the messages that were added to the given previous version of
+     * the message board to get this one. Since the messages can only be added,
+     * the previous messages are the first ones of this message board, and the
+     * new messages are returned as a view without going through the old ones.
+     *
+     * @param previous the previous version of the message board
+     * @return the unmodifiable list of the messages added since the previous version
+     * @throws IllegalArgumentException if the message board is not a later
+     *         version of the previous one
+     */
+    public List<Message> messagesAddedSince(MessageBoard previous) {
+        int previousSize = previous.messages.size();
+        Preconditions.checkArgument(previousSize <= messages.size()
+                && (previousSize == 0
+                || messages.get(previousSize - 1).equals(previous.messages.get(previousSize - 1))));
+        return messages.subList(previousSize, messages.size());
+    }
+
+    /**
+     * Returns the points of each player that is a scorer of
+     * at least one message in the message board.
      *
      * @return a map that maps each player to their points
      */
     public Map<PlayerColor, Integer> points() {
-        Map<PlayerColor, Integer> points = new HashMap<>();
-        for (Message message : messages)
-            for (PlayerColor player : message.scorers)
-                points.put(player, points.getOrDefault(player, 0) + message.points);
+        Map<PlayerColor, Integer> points = new EnumMap<>(PlayerColor.class);
+        for (PlayerColor player : PlayerColor.ALL)
+            if ((scorers & 1 << player.ordinal()) != 0)
+                points.put(player, this.points[player.ordinal()]);
         return points;
     }
 
+    /**
+     * Returns the points of the given player.
+     *
+     * @param player the player
+     * @return the points of the player (0 if they never scored)
+     */
+    public int points(PlayerColor player) {
+        return points[player.ordinal()];
+    }
+
+    /**
+     * Compares the message board to the given object, they are
+     * equal if they have equal text makers and the same messages.
+     *
+     * @param that the object to compare the message board to
+     * @return true if the message board is equal to the given object, false otherwise
+     */
+    @Override
+    public boolean equals(Object that) {
+        return that instanceof MessageBoard messageBoard
+                && textMaker.equals(messageBoard.textMaker)
+                && messages.equals(messageBoard.messages);
+    }
+
+    /**
+     * Returns the hash code of the message board based on its text maker and messages
+     *
+     * @return the hash code of the message board
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(textMaker, messages);
+    }
+
+    /**
+     * Returns the textual representation of the message board
+     *
+     * @return the text maker and messages of the message board as a string
+     */
+    @Override
+    public String toString() {
+        return STR."MessageBoard[textMaker=\{textMaker}, messages=\{messages}]";
+    }
+
     /**
      * Returns a message board with a new message added for a closed forest
      * that gave points to the majority occupant(s) if the latter is occupied.
@@ -52,7 +174,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
         int points = Points.forClosedForest(tileIds.size(), mushrooms);
         String text = textMaker.playersScoredForest(scorers, points, mushrooms, tileIds.size());
 
-        return new MessageBoard(textMaker, withNewMessage(text, points, scorers, tileIds));
+        return withNewMessage(text, points, scorers, tileIds);
     }
 
     /**
@@ -65,7 +187,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
      */
     public MessageBoard withClosedForestWithMenhir(PlayerColor player, Area<Zone.Forest> forest) {
         String text = textMaker.playerClosedForestWithMenhir(player);
-        return new MessageBoard(textMaker, withNewMessage(text, 0, Set.of(), forest.tileIds()));
+        return withNewMessage(text, 0, Set.of(), forest.tileIds());
     }
 
     /**
@@ -84,7 +206,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
         int points = Points.forClosedRiver(tileIds.size(), fish);
         String text = textMaker.playersScoredRiver(scorers, points, fish, tileIds.size());
 
-        return new MessageBoard(textMaker, withNewMessage(text, points, scorers, tileIds));
+        return withNewMessage(text, points, scorers, tileIds);
     }
 
     /**
@@ -105,7 +227,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
         String text = textMaker.playerScoredHuntingTrap(scorer, points, animalCount);
         Set<Integer> tileIds = adjacentMeadow.tileIds();
 
-        return new MessageBoard(textMaker, withNewMessage(text, points, Set.of(scorer), tileIds));
+        return withNewMessage(text, points, Set.of(scorer), tileIds);
     }
 
     /**
@@ -122,7 +244,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
         String text = textMaker.playerScoredLogboat(scorer, points, lakes);
         Set<Integer> tileIds = riverSystem.tileIds();
 
-        return new MessageBoard(textMaker, withNewMessage(text, points, Set.of(scorer), tileIds));
+        return withNewMessage(text, points, Set.of(scorer), tileIds);
     }
 
     /**
@@ -142,7 +264,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
         String text = textMaker.playersScoredMeadow(scorers, points, animalCount);
         Set<Integer> tileIds = meadow.tileIds();
 
-        return new MessageBoard(textMaker, withNewMessage(text, points, scorers, tileIds));
+        return withNewMessage(text, points, scorers, tileIds);
     }
 
     /**
@@ -161,7 +283,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
         String text = textMaker.playersScoredRiverSystem(scorers, points, fish);
         Set<Integer> tileIds = riverSystem.tileIds();
 
-        return new MessageBoard(textMaker, withNewMessage(text, points, scorers, tileIds));
+        return withNewMessage(text, points, scorers, tileIds);
     }
 
     /**
@@ -182,7 +304,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
         String text = textMaker.playersScoredPitTrap(scorers, points, animalCount);
         Set<Integer> tileIds = adjacentMeadow.tileIds();
 
-        return new MessageBoard(textMaker, withNewMessage(text, points, scorers, tileIds));
+        return withNewMessage(text, points, scorers, tileIds);
     }
 
     /**
@@ -201,7 +323,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
         Set<PlayerColor> scorers = riverSystem.majorityOccupants();
         String text = textMaker.playersScoredRaft(scorers, points, lakes);
 
-        return new MessageBoard(textMaker, withNewMessage(text, points, scorers, tileIds));
+        return withNewMessage(text, points, scorers, tileIds);
     }
 
     /**
@@ -214,26 +336,35 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
      */
     public MessageBoard withWinners(Set<PlayerColor> winners, int points) {
         String text = textMaker.playersWon(winners, points);
-        return new MessageBoard(textMaker, withNewMessage(text, 0, Set.of(), Set.of()));
+        return withNewMessage(text, 0, Set.of(), Set.of());
     }
 
     /**
-     * Private helper function that returns a new list of messages
-     * with a new message added to the end of the list.
+     * Private helper function that returns a new message board
+     * with a new message added to the end of the log
+     * and its points added to the points of its scorers.
      *
      * @param text the text of the message
      * @param points the points that the action gains
      * @param scorers the player(s) that scored the points
      * @param tileIds the ids of the tiles that the message is about
-     * @return a new list of messages with the new message added
+     * @return a new message board with the new message added
      */
-    private List<Message> withNewMessage(String text,
-                                         int points,
-                                         Set<PlayerColor> scorers,
-                                         Set<Integer> tileIds) {
-        List<Message> newMessages = new ArrayList<>(messages);
-        newMessages.add(new Message(text, points, scorers, tileIds));
-        return newMessages;
+    private MessageBoard withNewMessage(String text,
+                                        int points,
+                                        Set<PlayerColor> scorers,
+                                        Set<Integer> tileIds) {
+        Message message = new Message(text, points, scorers, tileIds);
+        int[] newPoints = this.points;
+        int newScorers = this.scorers;
+        if (!message.scorers.isEmpty()) {
+            newPoints = newPoints.clone();
+            for (PlayerColor player : message.scorers) {
+                newPoints[player.ordinal()] += points;
+                newScorers |= 1 << player.ordinal();
+            }
+        }
+        return new MessageBoard(textMaker, messages.with(message), newPoints, newScorers);
     }
 
     /**
@@ -268,6 +399,85 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) {
                 animalPoints.getOrDefault(Animal.Kind.DEER, 0));
     }
 
+    /**
+     * Unmodifiable list of messages that can only grow, whose versions share
+     * the same array as long as messages are added to the latest version.
+     * A version can take the next free cell of the array only once, adding a message
+     * to an older version copies the messages of that version to a new array.
+     */
+    private static final class MessageLog extends AbstractList<Message> implements RandomAccess {
+
+        /**
+         * The log without any message
+         */
+        private static final MessageLog EMPTY = new MessageLog(new Message[0], new AtomicInteger(), 0);
+
+        /**
+         * The minimum length of a new array of messages
+         */
+        private static final int MIN_CAPACITY = 16;
+
+        // Array shared by the versions, and number of its cells taken by a version
+        private final Message[] array;
+        private final AtomicInteger taken;
+
+        // Number of messages of this version
+        private final int size;
+
+        /**
+         * Private constructor that takes the array and its use as they are.
+         *
+         * @param array the array shared by the versions
+         * @param taken the number of cells of the array taken by a version
+         * @param size the number of messages of this version
+         */
+        private MessageLog(Message[] array, AtomicInteger taken, int size) {
+            this.array = array;
+            this.taken = taken;
+            this.size = size;
+        }
+
+        /**
+         * Returns a new log with the given message added at its end.
+         *
+         * @param message the message to add
+         * @return the new log with the message added
+         */
+        private MessageLog with(Message message) {
+            if (size < array.length && taken.compareAndSet(size, size + 1)) {
+                array[size] = message;
+                return new MessageLog(array, taken, size + 1);
+            }
+            Message[] newArray = new Message[Math.max(MIN_CAPACITY, 2 * size)];
+            System.arraycopy(array, 0, newArray, 0, size);
+            newArray[size] = message;
+            return new MessageLog(newArray, new AtomicInteger(size + 1), size + 1);
+        }
+
+        /**
+         * Returns the message at the given index.
+         *
+         * @param index the index of the message
+         * @return the message at the given index
+         * @throws IndexOutOfBoundsException if the index is not the one of a message
+         */
+        @Override
+        public Message get(int index) {
+            Objects.checkIndex(index, size);
+            return array[index];
+        }
+
+        /**
+         * Returns the number of messages of the log.
+         *
+         * @return the number of messages
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
     /**
      * Represents a message that is displayed
      * to the players in the message board.
@@ -13,6 +13,27 @@ import java.util.Objects;
  */
 public record Occupant(Kind kind, int zoneId) {
 
+    /**
+     * The number of bits of the packed code of an occupant used by its kind
+     */
+    private static final int KIND_BITS = 1;
+
+    /**
+     * The mask to extract the kind from the packed code of an occupant
+     */
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    /**
+     * The number of zone ids whose occupants are created only once,
+     * which covers the zones of all tiles of the game
+     */
+    private static final int SHARED_ZONE_IDS = 1000;
+
+    /**
+     * The occupants of the first zone ids, indexed by their packed code
+     */
+    private static final Occupant[] SHARED_OCCUPANTS = sharedOccupants();
+
     /**
      * The kind of the occupant
      */
@@ -45,4 +66,44 @@ public record Occupant(Kind kind, int zoneId) {
             case HUT -> 3;
         };
     }
+
+    /**
+     * Returns the occupant packed as an integer, with its kind in the lowest bit
+     * and its zone id in the other bits, so that packed occupants are ordered
+     * by their zone id and then by their kind.
+     *
+     * @return the packed code of the occupant
+     */
+    int packed() {
+        return zoneId << KIND_BITS | kind.ordinal();
+    }
+
+    /**
+     * Returns the occupant of the given packed code, which is
+     * not created again if its zone is on a tile of the game.
+     *
+     * @param packed the packed code of the occupant
+     * @return the occupant with the given packed code
+     * @throws IllegalArgumentException if the code is negative
+     */
+    static Occupant unpacked(int packed) {
+        Preconditions.checkArgument(packed >= 0);
+        if (packed < SHARED_OCCUPANTS.length) return SHARED_OCCUPANTS[packed];
+        return new Occupant(Kind.values()[packed & KIND_MASK], packed >>> KIND_BITS);
+    }
+
+    /**
+     * Private function that creates the occupants of the first zone ids.
+     *
+     * @return the occupants indexed by their packed code
+     */
+    private static Occupant[] sharedOccupants() {
+        Occupant[] occupants = new Occupant[SHARED_ZONE_IDS << KIND_BITS];
+        for (int zoneId = 0; zoneId < SHARED_ZONE_IDS; zoneId++)
+            for (Kind kind : Kind.values()) {
+                Occupant occupant = new Occupant(kind, zoneId);
+                occupants[occupant.packed()] = occupant;
+            }
+        return occupants;
+    }
 }
@@ -0,0 +1,291 @@
+package ch.epfl.chacun;
+
+import java.util.*;
+
+/**
+ * Immutable set of occupants stored as a bitset of their packed codes,
+ * so that adding, removing or looking for an occupant does not create any
+ * object. The occupants are iterated in the order of their zone id, and
+ * then of their kind (pawn first).
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+final class OccupantSet extends AbstractSet<Occupant> {
+
+    /**
+     * The number of bits of the index of a bit inside a word
+     */
+    private static final int WORD_BITS = 6;
+
+    /**
+     * The bits of the packed codes of pawns in a word (their kind bit is 0)
+     */
+    private static final long PAWN_MASK = 0x5555_5555_5555_5555L;
+
+    /**
+     * The set without any occupant
+     */
+    static final OccupantSet EMPTY = new OccupantSet(new long[0], 0);
+
+    // Bits of the packed codes of the occupants and number of occupants
+    private final long[] words;
+    private final int size;
+
+    // Sorted list view of the pawns of the set
+    private final List<Occupant> pawns = new Pawns();
+
+    /**
+     * Private constructor that takes the bits as they are.
+     *
+     * @param words the bits of the packed codes of the occupants
+     * @param size the number of occupants
+     */
+    private OccupantSet(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Returns the set with the given occupant added.
+     *
+     * @param occupant the occupant to add
+     * @return the set with the occupant
+     */
+    OccupantSet with(Occupant occupant) {
+        if (contains(occupant)) return this;
+        int packed = occupant.packed();
+        long[] newWords = Arrays.copyOf(words, Math.max(words.length, (packed >>> WORD_BITS) + 1));
+        newWords[packed >>> WORD_BITS] |= 1L << packed;
+        return new OccupantSet(newWords, size + 1);
+    }
+
+    /**
+     * Returns the set with the given occupant removed.
+     *
+     * @param occupant the occupant to remove
+     * @return the set without the occupant
+     */
+    OccupantSet without(Occupant occupant) {
+        if (!contains(occupant)) return this;
+        int packed = occupant.packed();
+        long[] newWords = words.clone();
+        newWords[packed >>> WORD_BITS] &= ~(1L << packed);
+        return new OccupantSet(newWords, size - 1);
+    }
+
+    /**
+     * Returns the set of the occupants of this set that are not in the given
+     * one, computed word by word without going through the occupants.
+     *
+     * @param that the set of the occupants to leave out
+     * @return the occupants of this set that are not in the given one
+     */
+    OccupantSet minus(OccupantSet that) {
+        long[] newWords = words.clone();
+        int newSize = 0;
+        for (int word = 0; word < newWords.length; word++) {
+            if (word < that.words.length)
+                newWords[word] &= ~that.words[word];
+            newSize += Long.bitCount(newWords[word]);
+        }
+        return newSize == 0 ? EMPTY : new OccupantSet(newWords, newSize);
+    }
+
+    /**
+     * Returns the pawns of the set, in the order of their zone id. The list is an
+     * unmodifiable view, so the pawn of an index and the index of a pawn are found
+     * by counting the bits of the words, without going through the pawns.
+     *
+     * @return the sorted list of the pawns of the set
+     */
+    List<Occupant> pawns() {
+        return pawns;
+    }
+
+    /**
+     * Checks if the set contains the given object, in constant time.
+     *
+     * @param that the object to look for
+     * @return true if the object is an occupant of the set, false otherwise
+     */
+    @Override
+    public boolean contains(Object that) {
+        if (!(that instanceof Occupant occupant)) return false;
+        int word = occupant.packed() >>> WORD_BITS;
+        return word < words.length && (words[word] & 1L << occupant.packed()) != 0;
+    }
+
+    /**
+     * Returns the number of occupants of the set.
+     *
+     * @return the size of the set
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an iterator over the occupants of the set,
+     * ordered by their zone id and then by their kind.
+     *
+     * @return the iterator over the occupants
+     */
+    @Override
+    public Iterator<Occupant> iterator() {
+        return new Iterator<>() {
+            private int next = nextPacked(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Occupant next() {
+                if (next < 0) throw new NoSuchElementException();
+                Occupant occupant = Occupant.unpacked(next);
+                next = nextPacked(next + 1);
+                return occupant;
+            }
+        };
+    }
+
+    /**
+     * Private function that returns the first packed code of an
+     * occupant of the set that is greater than or equal to the given one.
+     *
+     * @param from the packed code to start from
+     * @return the next packed code, or -1 if there is none
+     */
+    private int nextPacked(int from) {
+        int word = from >>> WORD_BITS;
+        if (word >= words.length) return -1;
+        long bits = words[word] & -1L << from;
+        while (bits == 0) {
+            if (++word == words.length) return -1;
+            bits = words[word];
+        }
+        return word << WORD_BITS | Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Private sorted list view of the pawns of the set.
+     */
+    private final class Pawns extends AbstractList<Occupant> implements RandomAccess {
+
+        /**
+         * Returns the pawn at the given index.
+         *
+         * @param index the index of the pawn in the list
+         * @return the pawn at the given index
+         * @throws IndexOutOfBoundsException if the index is out of bounds
+         */
+        @Override
+        public Occupant get(int index) {
+            Objects.checkIndex(index, size());
+            int rank = index;
+            for (int word = 0; ; word++) {
+                long remaining = words[word] & PAWN_MASK;
+                int count = Long.bitCount(remaining);
+                if (rank < count) {
+                    for (; rank > 0; rank--)
+                        remaining &= remaining - 1;
+                    return Occupant.unpacked(word << WORD_BITS | Long.numberOfTrailingZeros(remaining));
+                }
+                rank -= count;
+            }
+        }
+
+        /**
+         * Returns the index of the given pawn in the list.
+         *
+         * @param o the pawn to look for
+         * @return the index of the pawn, or -1 if it is not a pawn of the set
+         */
+        @Override
+        public int indexOf(Object o) {
+            if (!contains(o)) return -1;
+            int packed = ((Occupant) o).packed();
+            int index = 0;
+            for (int word = 0; word < packed >>> WORD_BITS; word++)
+                index += Long.bitCount(words[word] & PAWN_MASK);
+            return index + Long.bitCount(words[packed >>> WORD_BITS] & PAWN_MASK & ((1L << packed) - 1));
+        }
+
+        /**
+         * Returns the last index of the given pawn in the list,
+         * which is its only index since the pawns are distinct.
+         *
+         * @param o the pawn to look for
+         * @return the index of the pawn, or -1 if it is not a pawn of the set
+         */
+        @Override
+        public int lastIndexOf(Object o) {
+            return indexOf(o);
+        }
+
+        /**
+         * Checks whether the given object is a pawn of the set.
+         *
+         * @param o the object to look for
+         * @return true if the object is a pawn of the set, false otherwise
+         */
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Occupant occupant
+                    && occupant.kind() == Occupant.Kind.PAWN
+                    && OccupantSet.this.contains(occupant);
+        }
+
+        /**
+         * Returns the number of pawns of the set.
+         *
+         * @return the number of pawns
+         */
+        @Override
+        public int size() {
+            int count = 0;
+            for (long word : words)
+                count += Long.bitCount(word & PAWN_MASK);
+            return count;
+        }
+    }
+
+    /**
+     * Builder of a set of occupants, whose bits are only copied once.
+     */
+    static final class Builder {
+
+        // Bits of the packed codes of the occupants and number of occupants
+        private long[] words = new long[0];
+        private int size;
+
+        /**
+         * Adds an occupant to the set being built.
+         *
+         * @param occupant the occupant to add
+         * @return the builder
+         */
+        Builder add(Occupant occupant) {
+            int packed = occupant.packed();
+            int word = packed >>> WORD_BITS;
+            if (word >= words.length) words = Arrays.copyOf(words, word + 1);
+            if ((words[word] & 1L << packed) == 0) {
+                words[word] |= 1L << packed;
+                size++;
+            }
+            return this;
+        }
+
+        /**
+         * Builds the set of the added occupants.
+         *
+         * @return the set of occupants
+         */
+        OccupantSet build() {
+            return size == 0 ? EMPTY : new OccupantSet(words.clone(), size);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package ch.epfl.chacun;
+
+import java.util.Arrays;
+
+/**
+ * Immutable array that is shared structurally between its versions.
+ * The elements are stored in chunks of fixed size, changing an element only
+ * copies the chunk containing it and the (small) array of chunks, every
+ * other chunk is shared with the previous version of the array.
+ * Elements that were never set are null.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ *
+ * @param <E> the type of elements of the array
+ */
+final class PersistentArray<E> {
+
+    /**
+     * The number of bits of an index used inside a chunk
+     */
+    private static final int CHUNK_BITS = 5;
+
+    /**
+     * The number of elements of a chunk
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * The mask to extract the index inside a chunk
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * The array without any chunk
+     */
+    private static final PersistentArray<?> EMPTY = new PersistentArray<>(new Object[0][]);
+
+    // Chunks of the array (a chunk is null if none of its elements was set)
+    private final Object[][] chunks;
+
+    /**
+     * Private constructor that takes the chunks as they are.
+     *
+     * @param chunks the chunks of the array
+     */
+    private PersistentArray(Object[][] chunks) {
+        this.chunks = chunks;
+    }
+
+    /**
+     * Returns the empty array, where every element is null.
+     *
+     * @param <E> the type of elements of the array
+     * @return the empty array
+     */
+    @SuppressWarnings("unchecked")
+    static <E> PersistentArray<E> empty() {
+        return (PersistentArray<E>) EMPTY;
+    }
+
+    /**
+     * Returns the number of elements the array can hold
+     * without adding new chunks to it.
+     *
+     * @return the capacity of the array
+     */
+    int capacity() {
+        return chunks.length << CHUNK_BITS;
+    }
+
+    /**
+     * Returns the element at the given index.
+     *
+     * @param index the index of the element
+     * @return the element at the given index, or null if it was never set
+     */
+    E get(int index) {
+        return element(chunks, index);
+    }
+
+    /**
+     * Returns a new array with the element at the given index replaced.
+     *
+     * @param index the index of the element
+     * @param element the new element (can be null)
+     * @return the new array with the element replaced
+     * @throws IllegalArgumentException if the index is negative
+     */
+    PersistentArray<E> with(int index, E element) {
+        Builder<E> builder = new Builder<>(this);
+        builder.set(index, element);
+        return builder.build();
+    }
+
+    /**
+     * Compares the array to the given object, they are equal if the given
+     * object is an array with the same elements at the same indexes.
+     *
+     * @param that the object to compare the array to
+     * @return true if the array is equal to the given object, false otherwise
+     */
+    @Override
+    public boolean equals(Object that) {
+        if (!(that instanceof PersistentArray<?> array)) return false;
+        for (int i = 0; i < Math.max(capacity(), array.capacity()); i++) {
+            Object element = get(i);
+            if (element == null ? array.get(i) != null : !element.equals(array.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code of the array based on its elements
+     * (elements after the last non-null element are ignored)
+     *
+     * @return the hash code of the array
+     */
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        int nullCount = 0;
+        for (int i = 0; i < capacity(); i++) {
+            Object element = get(i);
+            if (element == null) {
+                nullCount++;
+            } else {
+                for (; nullCount > 0; nullCount--)
+                    hashCode = 31 * hashCode;
+                hashCode = 31 * hashCode + element.hashCode();
+            }
+        }
+        return hashCode;
+    }
+
+    /**
+     * Private function that returns the element at the given index of the given chunks.
+     *
+     * @param <E> the type of elements of the array
+     * @param chunks the chunks of the array
+     * @param index the index of the element
+     * @return the element at the given index, or null if it was never set
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> E element(Object[][] chunks, int index) {
+        int chunk = index >> CHUNK_BITS;
+        if (index < 0 || chunk >= chunks.length || chunks[chunk] == null)
+            return null;
+        return (E) chunks[chunk][index & CHUNK_MASK];
+    }
+
+    /**
+     * Builder for the array, that can change multiple elements of an array
+     * while copying every chunk at most once. The chunks it copied are
+     * no longer changed once they are part of a built array.
+     *
+     * @param <E> the type of elements of the array
+     */
+    static final class Builder<E> {
+
+        // Chunks of the array being built
+        private Object[][] chunks;
+
+        // Whether each chunk was copied by this builder (null if the chunks are shared)
+        private boolean[] copied;
+
+        /**
+         * Constructor for the builder that takes an existing
+         * array and helps build a new one from it.
+         *
+         * @param array the array to build
+         */
+        Builder(PersistentArray<E> array) {
+            chunks = array.chunks;
+        }
+
+        /**
+         * Returns the element at the given index.
+         *
+         * @param index the index of the element
+         * @return the element at the given index, or null if it was never set
+         */
+        E get(int index) {
+            return element(chunks, index);
+        }
+
+        /**
+         * Replaces the element at the given index.
+         *
+         * @param index the index of the element
+         * @param element the new element (can be null)
+         * @throws IllegalArgumentException if the index is negative
+         */
+        void set(int index, E element) {
+            Preconditions.checkArgument(index >= 0);
+            int chunk = index >> CHUNK_BITS;
+
+            if (copied == null || chunk >= chunks.length) {
+                int chunkCount = Math.max(chunks.length, chunk + 1);
+                chunks = Arrays.copyOf(chunks, chunkCount);
+                copied = copied == null
+                        ? new boolean[chunkCount]
+                        : Arrays.copyOf(copied, chunkCount);
+            }
+            if (!copied[chunk]) {
+                chunks[chunk] = chunks[chunk] == null
+                        ? new Object[CHUNK_SIZE]
+                        : chunks[chunk].clone();
+                copied[chunk] = true;
+            }
+            chunks[chunk][index & CHUNK_MASK] = element;
+        }
+
+        /**
+         * Builds the array.
+         *
+         * @return the built array
+         */
+        PersistentArray<E> build() {
+            copied = null;
+            return new PersistentArray<>(chunks);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package ch.epfl.chacun;
 
 import java.util.Objects;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -79,10 +78,9 @@ public record PlacedTile(Tile tile,
      * @throws IllegalArgumentException if the zone is not on the tile
      */
     public Zone zoneWithId(int id) {
-        for (Zone zone : tile.zones())
-            if (zone.id() == id)
-                return zone;
-        throw new IllegalArgumentException();
+        Zone zone = TileZones.of(tile).zoneWithId(id);
+        Preconditions.checkArgument(zone != null);
+        return zone;
     }
 
     /**
@@ -91,71 +89,46 @@ public record PlacedTile(Tile tile,
      * @return the zone of the tile with a special power
      */
     public Zone specialPowerZone() {
-        for (Zone zone : tile.zones())
-            if (zone.specialPower() != null)
-                return zone;
-        return null;
+        return TileZones.of(tile).specialPowerZone();
     }
 
     /**
      * Returns a set of forest zones of the tile.
      *
-     * @return set of forest zones of the tile
+     * @return unmodifiable set of forest zones of the tile
      */
     public Set<Zone.Forest> forestZones() {
-        Set<Zone.Forest> forests = new HashSet<>();
-        for (Zone zone : tile.zones())
-            if (zone instanceof Zone.Forest forest)
-                forests.add(forest);
-        return forests;
+        return TileZones.of(tile).forests();
     }
 
     /**
      * Returns a set of meadow zones of the tile.
      *
-     * @return set of meadow zones of the tile
+     * @return unmodifiable set of meadow zones of the tile
      */
     public Set<Zone.Meadow> meadowZones() {
-        Set<Zone.Meadow> meadows = new HashSet<>();
-        for (Zone zone : tile.zones())
-            if (zone instanceof Zone.Meadow meadow)
-                meadows.add(meadow);
-        return meadows;
+        return TileZones.of(tile).meadows();
     }
 
     /**
      * Returns a set of river zones of the tile.
      *
-     * @return set of river zones of the tile
+     * @return unmodifiable set of river zones of the tile
      */
     public Set<Zone.River> riverZones() {
-        Set<Zone.River> rivers = new HashSet<>();
-        for (Zone zone : tile.zones())
-            if (zone instanceof Zone.River river)
-                rivers.add(river);
-        return rivers;
+        return TileZones.of(tile).rivers();
     }
 
     /**
-     * Returns a set of all potential occupants of the tile.
+     * Returns a set of all potential occupants of the tile,
+     * which is empty if the tile has no placer.
      *
-     * @return set of potential occupants of the tile
+     * @return unmodifiable set of potential occupants of the tile
      */
     public Set<Occupant> potentialOccupants() {
-        Set<Occupant> occupants = new HashSet<>();
         if (placer == null)
-            return occupants;
-
-        for (Zone zone : tile.zones()) {
-            if (zone instanceof Zone.Lake)
-                occupants.add(new Occupant(Occupant.Kind.HUT, zone.id()));
-            else if (zone instanceof Zone.River river && !river.hasLake()) {
-                occupants.add(new Occupant(Occupant.Kind.HUT, zone.id()));
-                occupants.add(new Occupant(Occupant.Kind.PAWN, zone.id()));
-            } else
-                occupants.add(new Occupant(Occupant.Kind.PAWN, zone.id()));
-        }
-        return occupants;
+            return OccupantSet.EMPTY;
+        return TileZones.of(tile).potentialOccupants();
     }
 
     /**
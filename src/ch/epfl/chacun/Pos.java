@@ -11,10 +11,21 @@ package ch.epfl.chacun;
  */
 public record Pos(int x, int y) {
 
+    /**
+     * The width (and height) of the board
+     */
+    private static final int WIDTH = 2 * Board.REACH + 1;
+
+    /**
+     * All positions of the board, which are created only once,
+     * indexed by their packed code
+     */
+    private static final Pos[] BOARD_POSITIONS = boardPositions();
+
     /**
      * The origin position of the game (center of the board).
      */
-    public static final Pos ORIGIN = new Pos(0, 0);
+    public static final Pos ORIGIN = unpacked(packed(0, 0));
 
     /**
      * Change the position of the tile by a given amount.
@@ -25,7 +36,8 @@ public record Pos(int x, int y) {
      */
 
     public Pos translated(int dX, int dY) {
-        return new Pos(x + dX, y + dY);
+        int packed = packed(x + dX, y + dY);
+        return packed != -1 ? BOARD_POSITIONS[packed] : new Pos(x + dX, y + dY);
     }
 
     /**
@@ -42,4 +54,52 @@ public record Pos(int x, int y) {
             case W -> translated(-1, 0);
         };
     }
+
+    /**
+     * Returns the position packed as its index among the positions of the board
+     * sorted by their x-coordinate first, then by their y-coordinate, which
+     * takes 10 bits, or -1 if the position is out of the reach of the board.
+     *
+     * @return the packed code of the position, or -1 if it is not on the board
+     */
+    int packed() {
+        return packed(x, y);
+    }
+
+    /**
+     * Returns the position of the board with the given packed code,
+     * which is not created again.
+     *
+     * @param packed the packed code of the position
+     * @return the position with the given packed code
+     * @throws IndexOutOfBoundsException if the code is not one of a position of the board
+     */
+    static Pos unpacked(int packed) {
+        return BOARD_POSITIONS[packed];
+    }
+
+    /**
+     * Private function that returns the packed code of the given coordinates.
+     *
+     * @param x the x coordinate of the position
+     * @param y the y coordinate of the position
+     * @return the packed code of the position, or -1 if it is not on the board
+     */
+    private static int packed(int x, int y) {
+        if (Math.abs(x) > Board.REACH || Math.abs(y) > Board.REACH)
+            return -1;
+        return (x + Board.REACH) * WIDTH + (y + Board.REACH);
+    }
+
+    /**
+     * Private function that creates all positions of the board.
+     *
+     * @return the positions of the board indexed by their packed code
+     */
+    private static Pos[] boardPositions() {
+        Pos[] positions = new Pos[WIDTH * WIDTH];
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = new Pos(i / WIDTH - Board.REACH, i % WIDTH - Board.REACH);
+        return positions;
+    }
 }
@@ -1,6 +1,5 @@
 package ch.epfl.chacun;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -42,30 +41,23 @@ public record Tile(int id, Kind kind, TileSide n, TileSide e, TileSide s, TileSi
     /**
      * Set of all zones on the sides of the tile.
      * (All zones except lakes)
+     * The zones of the tiles of the game are computed only once.
      *
-     * @return the set of all zones on the sides of the tile
+     * @return the unmodifiable set of all zones on the sides of the tile
      */
     public Set<Zone> sideZones() {
-        Set<Zone> zones = new HashSet<>();
-        for (TileSide side : sides())
-            zones.addAll(side.zones());
-        return zones;
+        return TileZones.of(this).sideZones();
     }
 
 
     /**
      * Set of all zones on the tile.
      * (Including lakes)
+     * The zones of the tiles of the game are computed only once.
      *
-     * @return the set of all zones on the tile
+     * @return the unmodifiable set of all zones on the tile
      */
     public Set<Zone> zones() {
-        Set<Zone> zones = new HashSet<>();
-        for (Zone zone : sideZones()) {
-            zones.add(zone);
-            if (zone instanceof Zone.River river && river.hasLake())
-                zones.add(river.lake());
-        }
-        return zones;
+        return TileZones.of(this).zones();
     }
 }
@@ -1,11 +1,16 @@
 package ch.epfl.chacun;
 
+import java.util.AbstractList;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.function.Predicate;
 
 /**
  * Immutable record representing tile decks of a game.
  * (Lists of all decks of tiles (for each kind of tile)).
+ * The tiles of a deck are stored in an array shared by all the decks drawn
+ * from it, so drawing tiles does not copy the remaining tiles of the deck.
  *
  * @author Alexis Grillet-Aubert (381587)
  * @author Jakub Kliment (380660)
@@ -21,11 +26,12 @@ public record TileDecks(List<Tile> startTiles,
     /**
      * Constructor that copies the lists of tiles
      * with defensive copying to ensure immutability.
+     * Decks drawn from other decks are immutable and are not copied again.
      */
     public TileDecks {
-        startTiles = List.copyOf(startTiles);
-        normalTiles = List.copyOf(normalTiles);
-        menhirTiles = List.copyOf(menhirTiles);
+        startTiles = Deck.copyOf(startTiles);
+        normalTiles = Deck.copyOf(normalTiles);
+        menhirTiles = Deck.copyOf(menhirTiles);
     }
 
     /**
@@ -73,23 +79,108 @@ public record TileDecks(List<Tile> startTiles,
      */
     public TileDecks withTopTileDrawn(Tile.Kind kind) {
         Preconditions.checkArgument(deckSize(kind) != 0);
-        return switch (kind) {
-            case START -> new TileDecks(startTiles.subList(1, startTiles.size()), normalTiles, menhirTiles);
-            case NORMAL -> new TileDecks(startTiles, normalTiles.subList(1, normalTiles.size()), menhirTiles);
-            case MENHIR -> new TileDecks(startTiles, normalTiles, menhirTiles.subList(1, menhirTiles.size()));
-        };
+        return withTopTilesDrawn(kind, 1);
     }
 
     /**
      * Returns a deck of a given tile kind without its top tile, until a given predicate is satisfied.
+     * The tiles are tested one after the other and the deck is only drawn from once.
      *
      * @param kind the kind of the tile
      * @param predicate the predicate to satisfy
      * @return the deck of the given kind without its top tile, until the predicate is satisfied
      */
     public TileDecks withTopTileDrawnUntil(Tile.Kind kind, Predicate<Tile> predicate) {
-        return (deckSize(kind) != 0 && !predicate.test(topTile(kind)))
-                ? withTopTileDrawn(kind).withTopTileDrawnUntil(kind, predicate)
-                : this;
+        List<Tile> deck = deckKind(kind);
+        int drawn = 0;
+        while (drawn < deck.size() && !predicate.test(deck.get(drawn)))
+            drawn++;
+        return drawn == 0 ? this : withTopTilesDrawn(kind, drawn);
+    }
+
+    /**
+     * Private function that returns the decks without the given
+     * number of tiles on top of the deck of the given kind.
+     *
+     * @param kind the kind of the tile
+     * @param count the number of tiles to draw
+     * @return the decks with the tiles drawn
+     */
+    private TileDecks withTopTilesDrawn(Tile.Kind kind, int count) {
+        return switch (kind) {
+            case START -> new TileDecks(((Deck) startTiles).drawn(count), normalTiles, menhirTiles);
+            case NORMAL -> new TileDecks(startTiles, ((Deck) normalTiles).drawn(count), menhirTiles);
+            case MENHIR -> new TileDecks(startTiles, normalTiles, ((Deck) menhirTiles).drawn(count));
+        };
+    }
+
+    /**
+     * Private immutable deck of tiles, made of the tiles of an array
+     * from a given offset, the array being shared with the decks
+     * with more tiles on top of it.
+     */
+    private static final class Deck extends AbstractList<Tile> implements RandomAccess {
+
+        // Tiles of the deck, from the offset to the end of the array
+        private final Tile[] tiles;
+        private final int offset;
+
+        /**
+         * Private constructor that takes the tiles as they are.
+         *
+         * @param tiles the tiles of the deck and of the decks it was drawn from
+         * @param offset the index of the top tile of the deck
+         */
+        private Deck(Tile[] tiles, int offset) {
+            this.tiles = tiles;
+            this.offset = offset;
+        }
+
+        /**
+         * Returns the given list as a deck, which is only copied if it is not a deck already.
+         *
+         * @param tiles the tiles of the deck
+         * @return the immutable deck of the tiles
+         * @throws NullPointerException if the list or one of its tiles is null
+         */
+        private static Deck copyOf(List<Tile> tiles) {
+            if (tiles instanceof Deck deck) return deck;
+            Tile[] copy = tiles.toArray(new Tile[0]);
+            for (Tile tile : copy)
+                Objects.requireNonNull(tile);
+            return new Deck(copy, 0);
+        }
+
+        /**
+         * Returns the deck without the given number of tiles on its top.
+         *
+         * @param count the number of tiles to draw
+         * @return the deck with the tiles drawn
+         */
+        private Deck drawn(int count) {
+            return new Deck(tiles, offset + count);
+        }
+
+        /**
+         * Returns the tile at the given index, from the top of the deck.
+         *
+         * @param index the index of the tile
+         * @return the tile at the given index
+         * @throws IndexOutOfBoundsException if the index is out of bounds
+         */
+        @Override
+        public Tile get(int index) {
+            return tiles[offset + Objects.checkIndex(index, size())];
+        }
+
+        /**
+         * Returns the number of tiles of the deck.
+         *
+         * @return the size of the deck
+         */
+        @Override
+        public int size() {
+            return tiles.length - offset;
+        }
     }
 }
@@ -0,0 +1,243 @@
+package ch.epfl.chacun;
+
+import java.util.*;
+
+/**
+ * Immutable zones of a tile sorted by kind, computed once for every tile of
+ * the game (Tiles.TILES), so that the accessors of the tiles and placed tiles
+ * return them without filtering the zones of the tile again. The zones of other
+ * tiles, that are only created by tests, are computed when they are asked for.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+final class TileZones {
+
+    /**
+     * The maximal number of zones of a tile, which is also
+     * the number of possible local ids of the zones
+     */
+    private static final int MAX_ZONES = 10;
+
+    /**
+     * The zones of every tile of the game, indexed by the id of the tile
+     */
+    private static final TileZones[] TILE_ZONES = tileZones();
+
+    // Tile whose zones are kept
+    private final Tile tile;
+
+    // Zones on the sides of the tile and all zones of the tile (including lakes)
+    private final Set<Zone> sideZones;
+    private final Set<Zone> zones;
+
+    // Zones of the tile of each kind
+    private final Set<Zone.Forest> forests;
+    private final Set<Zone.Meadow> meadows;
+    private final Set<Zone.River> rivers;
+
+    // Zone of the tile with a special power (null if there is none)
+    private final Zone specialPowerZone;
+
+    // Zones of the tile indexed by their local id
+    private final Zone[] zonesByLocalId;
+
+    // Occupants that can be placed on the tile by its placer
+    private final OccupantSet potentialOccupants;
+
+    // Number of open connections of each zone, indexed by its local id
+    private final int[] openConnections;
+
+    /**
+     * Private constructor that computes the zones of the given tile.
+     *
+     * @param tile the tile
+     */
+    private TileZones(Tile tile) {
+        this.tile = tile;
+
+        Set<Zone> sideZones = new HashSet<>();
+        for (TileSide side : tile.sides())
+            sideZones.addAll(side.zones());
+
+        Set<Zone> zones = new HashSet<>();
+        for (Zone zone : sideZones) {
+            zones.add(zone);
+            if (zone instanceof Zone.River river && river.hasLake())
+                zones.add(river.lake());
+        }
+
+        Set<Zone.Forest> forests = new HashSet<>();
+        Set<Zone.Meadow> meadows = new HashSet<>();
+        Set<Zone.River> rivers = new HashSet<>();
+        OccupantSet.Builder potentialOccupants = new OccupantSet.Builder();
+        Zone specialPowerZone = null;
+        zonesByLocalId = new Zone[MAX_ZONES];
+        for (Zone zone : zones) {
+            switch (zone) {
+                case Zone.Forest forest -> forests.add(forest);
+                case Zone.Meadow meadow -> meadows.add(meadow);
+                case Zone.River river -> rivers.add(river);
+                case Zone.Lake lake -> {}
+            }
+
+            if (zone instanceof Zone.Lake)
+                potentialOccupants.add(new Occupant(Occupant.Kind.HUT, zone.id()));
+            else if (zone instanceof Zone.River river && !river.hasLake()) {
+                potentialOccupants.add(new Occupant(Occupant.Kind.HUT, zone.id()));
+                potentialOccupants.add(new Occupant(Occupant.Kind.PAWN, zone.id()));
+            } else
+                potentialOccupants.add(new Occupant(Occupant.Kind.PAWN, zone.id()));
+
+            if (specialPowerZone == null && zone.specialPower() != null)
+                specialPowerZone = zone;
+            zonesByLocalId[zone.localId()] = zone;
+        }
+
+        // An open connection between a lake and its river is counted for both
+        openConnections = new int[MAX_ZONES];
+        for (TileSide side : tile.sides()) {
+            for (Zone zone : side.zones()) {
+                openConnections[zone.localId()]++;
+
+                if (zone instanceof Zone.River river && river.hasLake()) {
+                    openConnections[river.localId()]++;
+                    openConnections[river.lake().localId()]++;
+                }
+            }
+        }
+
+        this.sideZones = Collections.unmodifiableSet(sideZones);
+        this.zones = Collections.unmodifiableSet(zones);
+        this.forests = Collections.unmodifiableSet(forests);
+        this.meadows = Collections.unmodifiableSet(meadows);
+        this.rivers = Collections.unmodifiableSet(rivers);
+        this.specialPowerZone = specialPowerZone;
+        this.potentialOccupants = potentialOccupants.build();
+    }
+
+    /**
+     * Returns the zones of the given tile, which are the precomputed
+     * ones if the tile is equal to one of the tiles of the game, even
+     * if it is another instance of it (like a decoded or rebuilt tile).
+     *
+     * @param tile the tile
+     * @return the zones of the tile
+     */
+    static TileZones of(Tile tile) {
+        int id = tile.id();
+        if (id >= 0 && id < TILE_ZONES.length && TILE_ZONES[id] != null) {
+            TileZones zones = TILE_ZONES[id];
+            if (zones.tile == tile || zones.tile.equals(tile)) return zones;
+        }
+        return new TileZones(tile);
+    }
+
+    /**
+     * Returns the unmodifiable set of the zones on the sides of the tile.
+     *
+     * @return the zones on the sides of the tile
+     */
+    Set<Zone> sideZones() {
+        return sideZones;
+    }
+
+    /**
+     * Returns the unmodifiable set of all zones of the tile (including lakes).
+     *
+     * @return the zones of the tile
+     */
+    Set<Zone> zones() {
+        return zones;
+    }
+
+    /**
+     * Returns the unmodifiable set of the forest zones of the tile.
+     *
+     * @return the forest zones of the tile
+     */
+    Set<Zone.Forest> forests() {
+        return forests;
+    }
+
+    /**
+     * Returns the unmodifiable set of the meadow zones of the tile.
+     *
+     * @return the meadow zones of the tile
+     */
+    Set<Zone.Meadow> meadows() {
+        return meadows;
+    }
+
+    /**
+     * Returns the unmodifiable set of the river zones of the tile.
+     *
+     * @return the river zones of the tile
+     */
+    Set<Zone.River> rivers() {
+        return rivers;
+    }
+
+    /**
+     * Returns the zone of the tile with a special power.
+     *
+     * @return the zone with a special power, or null if there is none
+     */
+    Zone specialPowerZone() {
+        return specialPowerZone;
+    }
+
+    /**
+     * Returns the zone of the tile with the given id.
+     *
+     * @param id the id of the zone
+     * @return the zone with the given id, or null if it is not on the tile
+     */
+    Zone zoneWithId(int id) {
+        int localId = Zone.localId(id);
+        if (localId >= 0 && localId < MAX_ZONES) {
+            Zone zone = zonesByLocalId[localId];
+            if (zone != null && zone.id() == id) return zone;
+        }
+        // Zones of tiles created by tests can share their local id
+        for (Zone zone : zones)
+            if (zone.id() == id) return zone;
+        return null;
+    }
+
+    /**
+     * Returns the set of the occupants that the placer of the tile can place on it.
+     *
+     * @return the potential occupants of the tile, ordered by their zone id
+     */
+    OccupantSet potentialOccupants() {
+        return potentialOccupants;
+    }
+
+    /**
+     * Returns the number of open connections of the zone of the given local id,
+     * an open connection between a lake and its river being counted for both.
+     *
+     * @param localId the local id of the zone
+     * @return the number of open connections of the zone
+     */
+    int openConnections(int localId) {
+        return openConnections[localId];
+    }
+
+    /**
+     * Private function that computes the zones of every tile of the game.
+     *
+     * @return the zones of the tiles of the game, indexed by the id of the tile
+     */
+    private static TileZones[] tileZones() {
+        int maxId = -1;
+        for (Tile tile : Tiles.TILES)
+            maxId = Math.max(maxId, tile.id());
+
+        TileZones[] tileZones = new TileZones[maxId + 1];
+        for (Tile tile : Tiles.TILES)
+            tileZones[tile.id()] = new TileZones(tile);
+        return tileZones;
+    }
+}
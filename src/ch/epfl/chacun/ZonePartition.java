@@ -1,32 +1,86 @@
 package ch.epfl.chacun;
 
 import java.util.*;
+import java.util.function.IntFunction;
 
 /**
- * Immutable record that represents a partition
+ * Immutable class that represents a partition
  * of areas with the same zone type.
+ * The areas are stored in a disjoint-set (union-find) forest keyed by
+ * the ids of their zones, so that the area containing a zone can be found
+ * without going through all areas of the partition. The forest is shared
+ * structurally between a partition and the partitions built from it.
  *
  * @author Alexis Grillet-Aubert (381587)
  * @author Jakub Kliment (380660)
  *
  * @param <Z> the type of zones in the areas of partition
- * @param areas the areas of the partition
  */
-public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
+public final class ZonePartition<Z extends Zone> {
+
+    // Node of each zone id in the union-find forest, which is the area
+    // for a root zone id, a link to its parent for any other zone id
+    // in the partition, and null if the zone id is not in the partition
+    private final PersistentArray<Object> nodes;
+
+    // Set of areas of the partition, computed only when it is needed
+    private Set<Area<Z>> areas;
 
     /**
-     * Compact constructor that ensures immutability
-     * with a defensive copy of the set of areas
+     * Constructor that ensures immutability with a defensive copy
+     * of the set of areas and indexes each zone of the areas.
+     *
+     * @param areas the areas of the partition
      */
-    public ZonePartition {
-        areas = Set.copyOf(areas);
+    public ZonePartition(Set<Area<Z>> areas) {
+        this.areas = Set.copyOf(areas);
+
+        PersistentArray.Builder<Object> nodes = new PersistentArray.Builder<>(PersistentArray.empty());
+        for (Area<Z> area : this.areas) {
+            Link root = null;
+            for (Z zone : area.zones()) {
+                if (root == null) {
+                    root = new Link(zone.id());
+                    nodes.set(zone.id(), area);
+                } else {
+                    nodes.set(zone.id(), root);
+                }
+            }
+        }
+        this.nodes = nodes.build();
     }
 
     /**
-     * Compact constructor without areas
+     * Constructor without areas
      */
     public ZonePartition() {
-        this(new HashSet<>());
+        this(Set.of());
+    }
+
+    /**
+     * Private constructor used by the builder that
+     * takes the union-find forest as it is.
+     *
+     * @param nodes the node of each zone id
+     */
+    private ZonePartition(PersistentArray<Object> nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the areas of the partition.
+     *
+     * @return the unmodifiable set of areas of the partition
+     */
+    public Set<Area<Z>> areas() {
+        if (areas == null) {
+            List<Area<Z>> rootAreas = new ArrayList<>();
+            for (int i = 0; i < nodes.capacity(); i++)
+                if (nodes.get(i) instanceof Area<?>)
+                    rootAreas.add(area(nodes.get(i)));
+            areas = Set.copyOf(rootAreas);
+        }
+        return areas;
     }
 
     /**
@@ -36,37 +90,97 @@ public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
      * @throws IllegalArgumentException if the area is not in the partition
      */
     public Area<Z> areaContaining(Z zone) {
-        return areaContaining(areas, zone);
+        return area(nodes.get(root(nodes::get, zone.id())));
     }
 
     /**
-     * Private function that does the job of finding the
-     * area of a particular zone in the partition.
-     * It is defined static to be used in the builder which
-     * is also static and will need this function multiple times.
+     * Compares the partition to the given object,
+     * they are equal if they have the same areas.
      *
-     * @param <Z> the type of zones in the areas of partition
-     * @param areas the set of areas to search in
-     * @param zone the zone to search for
-     * @return the area containing the zone
-     * @throws IllegalArgumentException if the area is not in the partition
+     * @param that the object to compare the partition to
+     * @return true if the partition is equal to the given object, false otherwise
+     */
+    @Override
+    public boolean equals(Object that) {
+        return that instanceof ZonePartition<?> partition
+                && areas().equals(partition.areas());
+    }
+
+    /**
+     * Returns the hash code of the partition based on its areas
+     *
+     * @return the hash code of the partition
      */
-    private static <Z extends Zone> Area<Z> areaContaining(Set<Area<Z>> areas, Z zone) {
-        for (Area<Z> area : areas)
-            if (area.zones().contains(zone))
-                return area;
-        throw new IllegalArgumentException();
+    @Override
+    public int hashCode() {
+        return areas().hashCode();
     }
 
+    /**
+     * Returns the textual representation of the partition
+     *
+     * @return the areas of the partition as a string
+     */
+    @Override
+    public String toString() {
+        return STR."ZonePartition[areas=\{areas()}]";
+    }
+
+    /**
+     * Private function that does the job of finding the root zone id
+     * of a zone id in the union-find forest, without compressing the path.
+     *
+     * @param nodes the function giving the node of a zone id
+     * @param zoneId the zone id to search for
+     * @return the root zone id of the area containing the zone
+     * @throws IllegalArgumentException if the zone is not in the partition
+     */
+    private static int root(IntFunction<Object> nodes, int zoneId) {
+        while (true) {
+            switch (nodes.apply(zoneId)) {
+                case Link(int parent) -> zoneId = parent;
+                case Area<?> area -> {
+                    return zoneId;
+                }
+                case null, default -> throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    /**
+     * Private function that casts the node of a root zone id to its area.
+     *
+     * @param <Z> the type of zones in the area
+     * @param node the node of a root zone id
+     * @return the area of the root zone id
+     */
+    @SuppressWarnings("unchecked")
+    private static <Z extends Zone> Area<Z> area(Object node) {
+        return (Area<Z>) node;
+    }
+
+    /**
+     * Link from a zone id to its parent zone id in the union-find forest.
+     *
+     * @param parent the parent zone id
+     */
+    private record Link(int parent) {}
+
     /**
      * Builder for the zone partition.
+     * The forest of the partition is shared with the builder and only
+     * the chunks of it that the builder modifies are copied.
      *
      * @param <Z> the type of zones in the areas of partition
      */
     public static final class Builder<Z extends Zone> {
 
-        // Set of areas of the zone partition
-        private final HashSet<Area<Z>> areas;
+        // Union-find forest of the partition being built
+        private final PersistentArray.Builder<Object> nodes;
+
+        // Last partition built (or the initial one) and whether it was modified since
+        private ZonePartition<Z> partition;
+        private boolean modified;
 
         /**
          * Constructor for the builder that takes an existing
@@ -75,7 +189,8 @@ public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
          * @param zonePartition the zone partition to build
          */
         public Builder(ZonePartition<Z> zonePartition) {
-            areas = new HashSet<>(zonePartition.areas());
+            nodes = new PersistentArray.Builder<>(zonePartition.nodes);
+            partition = zonePartition;
         }
 
         /**
@@ -86,7 +201,7 @@ public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
          * @param openConnections the number of open connections
          */
         public void addSingleton(Z zone, int openConnections) {
-            areas.add(new Area<>(Set.of(zone), new ArrayList<>(), openConnections));
+            set(zone.id(), new Area<>(Set.of(zone), List.of(), openConnections));
         }
 
 
@@ -100,9 +215,8 @@ public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
          *                                  or if the area is already occupied
          */
         public void addInitialOccupant(Z zone, PlayerColor color) {
-            Area<Z> area = areaContaining(areas, zone);
-            areas.add(area.withInitialOccupant(color));
-            areas.remove(area);
+            int root = find(zone.id());
+            set(root, areaOf(root).withInitialOccupant(color));
         }
 
         /**
@@ -115,9 +229,8 @@ public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
          *                                  or if the player has no occupant there
          */
         public void removeOccupant(Z zone, PlayerColor color) {
-            Area<Z> area = areaContaining(areas, zone);
-            areas.add(area.withoutOccupant(color));
-            areas.remove(area);
+            int root = find(zone.id());
+            set(root, areaOf(root).withoutOccupant(color));
         }
 
         /**
@@ -127,12 +240,16 @@ public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
          * @throws IllegalArgumentException if the area is not in the partition
          */
         public void removeAllOccupantsOf(Area<Z> area) {
-            Preconditions.checkArgument(areas.remove(area));
-            areas.add(area.withoutOccupants());
+            Preconditions.checkArgument(!area.zones().isEmpty());
+            int root = find(area.zones().iterator().next().id());
+            Preconditions.checkArgument(areaOf(root).equals(area));
+            set(root, area.withoutOccupants());
         }
 
         /**
          * Creates a union of two areas to form a new one.
+         * The root of the area with less zones is attached to the
+         * root of the other one to keep the trees shallow.
          *
          * @param zone1 the first zone
          * @param zone2 the second zone
@@ -140,12 +257,20 @@ public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
          *                                  is not in the partition
          */
         public void union(Z zone1, Z zone2) {
-            Area<Z> area1 = areaContaining(areas, zone1);
-            Area<Z> area2 = areaContaining(areas, zone2);
+            int root1 = find(zone1.id());
+            int root2 = find(zone2.id());
+            Area<Z> area1 = areaOf(root1);
+            Area<Z> area2 = areaOf(root2);
 
-            areas.add(area1.connectTo(area2));
-            areas.remove(area1);
-            areas.remove(area2);
+            if (root1 != root2) {
+                if (area1.zones().size() < area2.zones().size()) {
+                    int root = root1;
+                    root1 = root2;
+                    root2 = root;
+                }
+                set(root2, new Link(root1));
+            }
+            set(root1, area1.connectTo(area2));
         }
 
         /**
@@ -154,7 +279,49 @@ public record ZonePartition<Z extends Zone> (Set<Area<Z>> areas) {
          * @return the built zone partition
          */
         public ZonePartition<Z> build() {
-            return new ZonePartition<>(areas);
+            if (modified) {
+                partition = new ZonePartition<>(nodes.build());
+                modified = false;
+            }
+            return partition;
+        }
+
+        /**
+         * Private function that finds the root zone id of a zone id
+         * and compresses the path from the zone id to its root.
+         *
+         * @param zoneId the zone id to search for
+         * @return the root zone id of the area containing the zone
+         * @throws IllegalArgumentException if the zone is not in the partition
+         */
+        private int find(int zoneId) {
+            int root = root(nodes::get, zoneId);
+            while (nodes.get(zoneId) instanceof Link(int parent) && parent != root) {
+                set(zoneId, new Link(root));
+                zoneId = parent;
+            }
+            return root;
+        }
+
+        /**
+         * Private function that returns the area of a root zone id.
+         *
+         * @param root the root zone id
+         * @return the area of the root zone id
+         */
+        private Area<Z> areaOf(int root) {
+            return area(nodes.get(root));
+        }
+
+        /**
+         * Private function that changes the node of a zone id.
+         *
+         * @param zoneId the zone id
+         * @param node the new node of the zone id
+         */
+        private void set(int zoneId, Object node) {
+            nodes.set(zoneId, node);
+            modified = true;
         }
     }
 }
@@ -55,24 +55,12 @@ public record ZonePartitions(ZonePartition<Zone.Forest> forests,
          * @param tile the tile to add to the partitions
          */
         public void addTile(Tile tile) {
-            int[] zoneOpenConnections = new int[10];
-
-            // Count the number of open connections for each zone
-            // We consider an open connection between a lake and a river as well
-            for (TileSide side : tile.sides()) {
-                for (Zone zone : side.zones()) {
-                    zoneOpenConnections[zone.localId()]++;
-
-                    if (zone instanceof Zone.River river && river.hasLake()) {
-                        zoneOpenConnections[river.localId()]++;
-                        zoneOpenConnections[river.lake().localId()]++;
-                    }
-                }
-            }
+            // Open connections of each zone, counting the one between a lake and its river
+            TileZones tileZones = TileZones.of(tile);
 
             // Add the zones to the partitions
-            for (Zone zone : tile.zones()) {
-                int openConnections = zoneOpenConnections[zone.localId()];
+            for (Zone zone : tileZones.zones()) {
+                int openConnections = tileZones.openConnections(zone.localId());
                 switch (zone) {
                     case Zone.Meadow meadow ->
                             meadows.addSingleton(meadow, openConnections);
@@ -89,8 +77,8 @@ public record ZonePartitions(ZonePartition<Zone.Forest> forests,
             }
 
             // Connect the rivers to their lakes (close the open connection)
-            for (Zone zone : tile.zones())
-                if (zone instanceof Zone.River river && river.hasLake())
+            for (Zone.River river : tileZones.rivers())
+                if (river.hasLake())
                     riverSystem.union(river, river.lake());
         }
 
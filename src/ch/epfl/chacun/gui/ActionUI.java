@@ -11,7 +11,6 @@ import javafx.scene.text.Text;
 import java.util.List;
 import java.util.StringJoiner;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * A UI utility class that consists of a single public static function create.
@@ -74,16 +73,17 @@ public final class ActionUI {
         textField.setId("action-field");
 
         // Text field only accepts valid base-32 characters and converts them to uppercase
+        // (the text is only rebuilt when it contains other characters, which is rarely the case)
         textField.setTextFormatter(new TextFormatter<>(change -> {
-            String newText = change.getText();
-            newText = newText.chars()
-                    .mapToObj(c -> (char) c)
-                    .map(Character::toUpperCase)
-                    .map(String::valueOf)
-                    .filter(Base32::isValid)
-                    .collect(Collectors.joining());
+            String text = change.getText();
+            if (text.isEmpty() || Base32.isValid(text)) return change;
 
-            change.setText(newText);
+            StringBuilder newText = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = Character.toUpperCase(text.charAt(i));
+                if (Base32.isValid(c)) newText.append(c);
+            }
+            change.setText(newText.toString());
             return change;
         }));
 
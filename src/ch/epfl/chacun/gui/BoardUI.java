@@ -1,25 +1,23 @@
 package ch.epfl.chacun.gui;
 
 import ch.epfl.chacun.*;
-import javafx.beans.binding.Bindings;
-import javafx.beans.value.ObservableBooleanValue;
 import javafx.beans.value.ObservableValue;
+import javafx.geometry.Bounds;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.effect.Blend;
 import javafx.scene.effect.BlendMode;
 import javafx.scene.effect.ColorInput;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseButton;
+import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.RowConstraints;
 import javafx.scene.paint.Color;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Consumer;
 
 import static ch.epfl.chacun.gui.ImageLoader.*;
@@ -30,6 +28,9 @@ import static ch.epfl.chacun.gui.ImageLoader.*;
  * the board of the game. The board is displayed as a grid of tiles, where each tile
  * can contain a placed tile and its occupants. The board is scrollable and the
  * player can interact with it by clicking on or hovering over the tiles.
+ * The board is virtualised: nodes are only created for the cells inside the
+ * scroll viewport that contain a tile or where the tile to place can be placed,
+ * the other (empty) cells being drawn by the background of the grid.
  *
  * @author Alexis Grillet-Aubert (381587)
  * @author Jakub Kliment (380660)
@@ -49,7 +50,8 @@ public final class BoardUI {
      * The board is created based on the given parameters and the observable values of the game state,
      * the rotation of the tile to place, the set of visible occupants, and the set of tile ids.
      * The consumers handle the rotation of the tile, the position of the tile, and the occupant.
-     *
+     * When one of the observable values changes, only the cells whose image,
+     * rotation or color changed are updated.
      *
      * @param reach the reach of the board
      * @param gameStateO the observable value of the game state
@@ -71,189 +73,357 @@ public final class BoardUI {
                               Consumer<Occupant> occupant) {
 
         Preconditions.checkArgument(reach > 0);
-        // Empty tile image in a visible shade of gray
-        WritableImage emptyTileImage = new WritableImage(1, 1);
-        emptyTileImage
-                .getPixelWriter()
-                .setColor(0, 0, Color.gray(0.98));
-
-        // Cache for tile images
-        Map<Integer, Image> cache = new HashMap<>();
 
         // Scroll pane for the board
         ScrollPane boardScrollPane = new ScrollPane();
         boardScrollPane.getStylesheets().add("board.css");
         boardScrollPane.setId("board-scroll-pane");
 
-        // Grid pane for the board
+        // Grid pane for the board, whose columns and rows keep their size without cells
         GridPane gridPane = new GridPane();
         gridPane.setId("board-grid");
+        for (int i = 0; i < 2 * reach + 1; i++) {
+            gridPane.getColumnConstraints().add(new ColumnConstraints(NORMAL_TILE_FIT_SIZE));
+            gridPane.getRowConstraints().add(new RowConstraints(NORMAL_TILE_FIT_SIZE));
+        }
         boardScrollPane.setContent(gridPane);
 
-        // Loop through all the tiles in the reach of the board
-        for (int x = -reach; x <= reach; x++) {
-            for (int y = -reach; y <= reach; y++) {
-                // Group for one tile
-                Group group = new Group();
-                Pos currentPos = new Pos(x, y);
-
-                ObservableBooleanValue hoverProperty = group.hoverProperty();
-
-                ObservableValue<PlacedTile> observableTile = gameStateO.map(
-                        state -> state.board().tileAt(currentPos));
-
-                // Observable data for the cell changing based on the game state
-                ObservableValue<CellData> cellData = Bindings.createObjectBinding(() -> {
-                    GameState state = gameStateO.getValue();
-                    Set<Integer> currentIds = tileIdsO.getValue();
-
-                    Image imageData;
-                    Color colorData;
-                    Rotation rotationData;
-
-                    PlacedTile tile = state.board().tileAt(currentPos);
-
-                    // Get the image, rotation, and color of the cell based on the game state
-                    if (tile != null) {
-                        int id = tile.id();
-                        rotationData = tile.rotation();
-
-                        imageData = cache.computeIfAbsent(id, ImageLoader::normalImageForTile);
-
-                        // If the tile is not in the set of tile ids, color it black, else transparent
-                        colorData = (!currentIds.isEmpty() && !currentIds.contains(id))
-                                ? Color.BLACK
-                                : Color.TRANSPARENT;
-
-                    } else if (state.board().insertionPositions().contains(currentPos)
-                            && state.nextAction() == GameState.Action.PLACE_TILE) {
-
-                        if (hoverProperty.get()) {
-                            Tile tileToPlace = state.tileToPlace();
-
-                            imageData = cache.computeIfAbsent(
-                                    tileToPlace.id(),
-                                    ImageLoader::normalImageForTile);
-                            rotationData = rotationO.getValue();
-
-                            PlacedTile potentialTile = new PlacedTile(
-                                    tileToPlace,
-                                    state.currentPlayer(),
-                                    rotationData,
-                                    currentPos);
-
-                            // Change color cellData based on the possibility of placement
-                            colorData = state.board().canAddTile(potentialTile)
-                                    ? Color.TRANSPARENT
-                                    : Color.WHITE;
-                        } else {
-                            imageData = emptyTileImage;
-                            colorData = ColorMap.fillColor(state.currentPlayer());
-                            rotationData = Rotation.NONE;
-                        }
-                    } else {
-                        imageData = emptyTileImage;
-                        colorData = Color.TRANSPARENT;
-                        rotationData = Rotation.NONE;
-                    }
-                    return new CellData(imageData, rotationData, colorData);
-                }, gameStateO, tileIdsO, rotationO, hoverProperty);
+        BoardView view = new BoardView(reach, boardScrollPane, gridPane,
+                gameStateO, rotationO, visibleOccupantsO, tileIdsO,
+                consumerRotation, position, occupant);
 
-                // Add a listener to the observable tile to add occupants and meadow markers
-                observableTile.addListener((tile, oldTile, nextTile) -> {
-                    if (oldTile == null) {
-                        // Add occupants to the tile
-                        for (Occupant tileOccupant : nextTile.potentialOccupants()) {
-                            Node occupantImage = Icon.newFor(nextTile.placer(), tileOccupant.kind());
+        // Update the cells when the game or the visible part of the board changes
+        gameStateO.addListener((o, oldState, newState) -> view.update());
+        tileIdsO.addListener((o, oldIds, newIds) -> view.update());
+        rotationO.addListener((o, oldRotation, newRotation) -> view.update());
+        visibleOccupantsO.addListener((o, oldOccupants, newOccupants) -> view.updateOccupants());
+        boardScrollPane.viewportBoundsProperty().addListener((o, oldBounds, newBounds) -> view.update());
+        boardScrollPane.hvalueProperty().addListener((o, oldValue, newValue) -> view.update());
+        boardScrollPane.vvalueProperty().addListener((o, oldValue, newValue) -> view.update());
+        gridPane.widthProperty().addListener((o, oldWidth, newWidth) -> view.update());
+        gridPane.heightProperty().addListener((o, oldHeight, newHeight) -> view.update());
 
-                            occupantImage.visibleProperty().bind(visibleOccupantsO.map(
-                                    list -> list.contains(tileOccupant)));
+        // Display the sprites of the displayed cells from the atlas once it is packed
+        atlasProperty().addListener((o, oldAtlas, newAtlas) -> view.updateSprites());
 
-                            String kind = tileOccupant.kind() == Occupant.Kind.PAWN ? "pawn" : "hut";
-                            occupantImage.setId(STR."\{kind}_\{tileOccupant.zoneId()}");
+        // Set the scroll pane to the center of the board
+        boardScrollPane.setVvalue(0.5);
+        boardScrollPane.setHvalue(0.5);
+        view.update();
+        return boardScrollPane;
+    }
 
-                            occupantImage.setOnMouseClicked(event -> {
-                                    if (event.isStillSincePress())
-                                        occupant.accept(tileOccupant);
-                            });
+    /**
+     * Private record to store the sprite, rotation, and color of a cell.
+     *
+     * @param sprite the sprite of the image of the cell
+     * @param rotation the rotation of the cell
+     * @param color the color of the cell
+     */
+    private record CellData(Sprite sprite, Rotation rotation, Color color) {}
 
-                            occupantImage.rotateProperty().bind(cellData.map(
-                                    cell -> cell.rotation.negated().degreesCW()));
+    /**
+     * Private view of the board that keeps the nodes of the cells that are
+     * displayed, by their position, and creates, updates or removes them
+     * when the game state or the visible part of the board changes.
+     */
+    private static final class BoardView {
+
+        // Reach of the board and containers of the cells
+        private final int reach;
+        private final ScrollPane scrollPane;
+        private final GridPane gridPane;
+
+        // Observable values displayed by the board
+        private final ObservableValue<GameState> gameStateO;
+        private final ObservableValue<Rotation> rotationO;
+        private final ObservableValue<Set<Occupant>> visibleOccupantsO;
+        private final ObservableValue<Set<Integer>> tileIdsO;
+
+        // Consumers of the interactions of the player with the board
+        private final Consumer<Rotation> consumerRotation;
+        private final Consumer<Pos> position;
+        private final Consumer<Occupant> occupant;
+
+        // Empty tile image in a visible shade of gray, and its sprite
+        private final WritableImage emptyTileImage = new WritableImage(1, 1);
+        private final Sprite emptyTileSprite = new Sprite(emptyTileImage, null);
+
+        // Displayed cells by their position
+        private final Map<Pos, Cell> cells = new HashMap<>();
+
+        /**
+         * Constructor of the view, which does not display any cell yet.
+         *
+         * @param reach the reach of the board
+         * @param scrollPane the scroll pane of the board
+         * @param gridPane the grid containing the cells
+         * @param gameStateO the observable value of the game state
+         * @param rotationO the observable value of the rotation of the tile to place
+         * @param visibleOccupantsO the observable value of the set of visible occupants
+         * @param tileIdsO the observable value of the set of tile ids
+         * @param consumerRotation the consumer that handles the rotation of the tile
+         * @param position the consumer that handles the position of the tile
+         * @param occupant the consumer that handles the occupant
+         */
+        private BoardView(int reach,
+                          ScrollPane scrollPane,
+                          GridPane gridPane,
+                          ObservableValue<GameState> gameStateO,
+                          ObservableValue<Rotation> rotationO,
+                          ObservableValue<Set<Occupant>> visibleOccupantsO,
+                          ObservableValue<Set<Integer>> tileIdsO,
+                          Consumer<Rotation> consumerRotation,
+                          Consumer<Pos> position,
+                          Consumer<Occupant> occupant) {
+            this.reach = reach;
+            this.scrollPane = scrollPane;
+            this.gridPane = gridPane;
+            this.gameStateO = gameStateO;
+            this.rotationO = rotationO;
+            this.visibleOccupantsO = visibleOccupantsO;
+            this.tileIdsO = tileIdsO;
+            this.consumerRotation = consumerRotation;
+            this.position = position;
+            this.occupant = occupant;
+            emptyTileImage.getPixelWriter().setColor(0, 0, Color.gray(0.98));
+        }
 
-                            group.getChildren().add(occupantImage);
-                        }
+        /**
+         * Displays the cells of the visible part of the board that contain
+         * a tile or where the tile to place can be placed, removing the others,
+         * and updates the displayed cells whose data changed.
+         */
+        private void update() {
+            GameState state = gameStateO.getValue();
+            Board board = state.board();
+            boolean placing = state.nextAction() == GameState.Action.PLACE_TILE;
+
+            // Range of the visible columns and rows, with one more cell on each side
+            Bounds viewport = scrollPane.getViewportBounds();
+            double step = NORMAL_TILE_FIT_SIZE + gridPane.getHgap();
+            double left = scrollPane.getHvalue()
+                    * Math.max(0, gridPane.getWidth() - viewport.getWidth());
+            double top = scrollPane.getVvalue()
+                    * Math.max(0, gridPane.getHeight() - viewport.getHeight());
+            int minX = Math.max(-reach, (int) (left / step) - reach - 1);
+            int maxX = Math.min(reach, (int) ((left + viewport.getWidth()) / step) - reach + 1);
+            int minY = Math.max(-reach, (int) (top / step) - reach - 1);
+            int maxY = Math.min(reach, (int) ((top + viewport.getHeight()) / step) - reach + 1);
+
+            // Remove the cells that are not visible or have nothing to display anymore
+            cells.entrySet().removeIf(entry -> {
+                Pos pos = entry.getKey();
+                boolean keep = pos.x() >= minX && pos.x() <= maxX && pos.y() >= minY && pos.y() <= maxY
+                        && isDisplayed(board, pos, placing)
+                        && (entry.getValue().tile == null) == (board.tileAt(pos) == null);
+                if (!keep) gridPane.getChildren().remove(entry.getValue().group);
+                return !keep;
+            });
+
+            // Create the missing cells and update the displayed ones
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    Pos pos = new Pos(x, y);
+                    Cell cell = cells.get(pos);
+                    if (cell == null && isDisplayed(board, pos, placing)) {
+                        cell = new Cell(pos, board.tileAt(pos));
+                        cells.put(pos, cell);
+                        gridPane.add(cell.group, x + reach, y + reach);
+                    }
+                    if (cell != null) cell.update();
+                }
+            }
+        }
 
-                        // Add meadow markers for the animals
-                        for (Zone.Meadow meadow : nextTile.meadowZones()) {
-                            for (Animal animal : meadow.animals()) {
-                                ImageView marker = new ResizedImageView(MARKER_FIT_SIZE);
-                                marker.getStyleClass().add("marker");
-                                marker.setId(STR."marker_\{animal.id()}");
+        /**
+         * Displays the sprites of the displayed cells again, so that they
+         * are taken from the atlas once it is packed.
+         */
+        private void updateSprites() {
+            for (Cell cell : cells.values())
+                for (ImageView marker : cell.markerNodes.values())
+                    markerSprite().displayIn(marker);
+            update();
+        }
 
-                                marker.visibleProperty().bind(gameStateO.map(
-                                        state -> state.board().cancelledAnimals().contains(animal)));
+        /**
+         * Updates the visibility of the occupants of the displayed cells.
+         */
+        private void updateOccupants() {
+            Set<Occupant> visibleOccupants = visibleOccupantsO.getValue();
+            for (Cell cell : cells.values())
+                cell.occupantNodes.forEach(
+                        (tileOccupant, node) -> node.setVisible(visibleOccupants.contains(tileOccupant)));
+        }
 
-                                group.getChildren().add(marker);
-                            }
-                        }
-                    }
-                });
+        /**
+         * Checks if the cell of the given position needs a node, which is the case if it
+         * contains a tile, or if a tile is being placed and it is an insertion position.
+         *
+         * @param board the board of the game
+         * @param pos the position of the cell
+         * @param placing whether a tile is being placed
+         * @return true if the cell needs a node, false if the background of the grid is enough
+         */
+        private static boolean isDisplayed(Board board, Pos pos, boolean placing) {
+            return board.tileAt(pos) != null
+                    || (placing && board.insertionPositions().contains(pos));
+        }
 
-                // Add the rotation of the tile
-                group.rotateProperty().bind(cellData.map(cell -> cell.rotation.degreesCW()));
+        /**
+         * Private cell of the board, displaying the tile at its position (with its
+         * occupants and markers), or the tile to place on its insertion position.
+         */
+        private final class Cell {
+
+            // Position of the cell and tile it displays (null if none), the tile
+            // of a position only changing afterwards by its occupant
+            private final Pos pos;
+            private final PlacedTile tile;
+
+            // Node of the cell and color filter of its tile
+            private final Group group = new Group();
+            private final ImageView imageTile = new ResizedImageView(NORMAL_TILE_FIT_SIZE);
+            private final ColorInput plain = new ColorInput();
+            private final Blend blend = new Blend(BlendMode.SRC_OVER);
+
+            // Occupants and markers of the tile, with their nodes
+            private final Map<Occupant, Node> occupantNodes = new HashMap<>();
+            private final Map<Animal, ImageView> markerNodes = new HashMap<>();
+
+            // Last displayed data of the cell (null if never displayed)
+            private CellData data;
+
+            /**
+             * Constructor of a cell, which adds the occupants and the
+             * markers of the animals of the tile if there is one.
+             *
+             * @param pos the position of the cell
+             * @param tile the tile at the position (can be null)
+             */
+            private Cell(Pos pos, PlacedTile tile) {
+                this.pos = pos;
+                this.tile = tile;
 
                 // Add the color filters of the tile
-                ColorInput plain = new ColorInput();
-                plain.paintProperty().bind(cellData.map(cell -> cell.color));
                 plain.setHeight(NORMAL_TILE_FIT_SIZE);
                 plain.setWidth(NORMAL_TILE_FIT_SIZE);
+                blend.setOpacity(0.5);
+                blend.setTopInput(plain);
 
-                Blend blendR = new Blend(BlendMode.SRC_OVER);
-                blendR.setOpacity(0.5);
-                blendR.setTopInput(plain);
+                group.getChildren().add(imageTile);
 
-                ObservableValue<Blend> blend = cellData.map(
-                        cellData1 -> !cellData1.color.equals(Color.TRANSPARENT)
-                                ? blendR
-                                : null);
-                group.effectProperty().bind(blend);
+                if (tile != null) {
+                    // Add occupants to the tile
+                    for (Occupant tileOccupant : tile.potentialOccupants()) {
+                        Node occupantImage = Icon.newFor(tile.placer(), tileOccupant.kind());
 
-                // Image view for the tile
-                ImageView imageTile = new ResizedImageView(NORMAL_TILE_FIT_SIZE);
-                imageTile.imageProperty().bind(cellData.map(cell -> cell.image));
-                imageTile.visibleProperty().bind(cellData.map(cell -> cell.image != null));
-                group.getChildren().add(imageTile);
+                        String kind = tileOccupant.kind() == Occupant.Kind.PAWN ? "pawn" : "hut";
+                        occupantImage.setId(STR."\{kind}_\{tileOccupant.zoneId()}");
+                        occupantImage.setVisible(visibleOccupantsO.getValue().contains(tileOccupant));
+
+                        occupantImage.setOnMouseClicked(event -> {
+                            if (event.isStillSincePress())
+                                occupant.accept(tileOccupant);
+                        });
+
+                        occupantNodes.put(tileOccupant, occupantImage);
+                        group.getChildren().add(occupantImage);
+                    }
+
+                    // Add meadow markers for the animals
+                    for (Zone.Meadow meadow : tile.meadowZones()) {
+                        for (Animal animal : meadow.animals()) {
+                            ImageView marker = new ResizedImageView(MARKER_FIT_SIZE);
+                            marker.getStyleClass().add("marker");
+                            markerSprite().displayIn(marker);
+                            marker.setId(STR."marker_\{animal.id()}");
+
+                            markerNodes.put(animal, marker);
+                            group.getChildren().add(marker);
+                        }
+                    }
+                }
+
+                // Update the hovered cell only
+                group.hoverProperty().addListener((o, oldHover, newHover) -> update());
 
                 // Handle the player's interaction with the tile (place or rotate it)
-                group.setOnMouseClicked(event  -> {
-                    if (gameStateO.getValue().board().insertionPositions().contains(currentPos)
+                group.setOnMouseClicked(event -> {
+                    if (gameStateO.getValue().board().insertionPositions().contains(pos)
                             && event.isStillSincePress()) {
 
                         if (event.getButton() == MouseButton.PRIMARY)
-                            position.accept(currentPos);
+                            position.accept(pos);
 
                         if (event.getButton() == MouseButton.SECONDARY)
                             consumerRotation.accept(
                                     event.isAltDown() ? Rotation.RIGHT : Rotation.LEFT);
                     }
                 });
+            }
 
-                gridPane.add(group, x + reach, y + reach);
+            /**
+             * Updates the nodes of the cell if its data changed since it was last displayed,
+             * and the visibility of the markers of the cancelled animals.
+             */
+            private void update() {
+                GameState state = gameStateO.getValue();
+                for (Map.Entry<Animal, ImageView> marker : markerNodes.entrySet())
+                    marker.getValue().setVisible(
+                            state.board().cancelledAnimals().contains(marker.getKey()));
+
+                CellData newData = cellData(state);
+                if (newData.equals(data)) return;
+                data = newData;
+
+                // Rotation of the tile and of its occupants
+                group.setRotate(data.rotation.degreesCW());
+                for (Node occupantImage : occupantNodes.values())
+                    occupantImage.setRotate(data.rotation.negated().degreesCW());
+
+                // Color filter and image of the tile
+                plain.setPaint(data.color);
+                group.setEffect(!data.color.equals(Color.TRANSPARENT) ? blend : null);
+                data.sprite.displayIn(imageTile);
+                imageTile.setVisible(data.sprite.image() != null);
             }
-        }
 
-        // Set the scroll pane to the center of the board
-        boardScrollPane.setVvalue(0.5);
-        boardScrollPane.setHvalue(0.5);
-        return boardScrollPane;
+            /**
+             * Computes the sprite, rotation and color of the cell in the given game state.
+             *
+             * @param state the game state
+             * @return the data of the cell
+             */
+            private CellData cellData(GameState state) {
+                Set<Integer> currentIds = tileIdsO.getValue();
+
+                // Get the sprite, rotation, and color of the cell based on the game state
+                if (tile != null) {
+                    int id = tile.id();
+                    Sprite sprite = normalSpriteForTile(id);
+
+                    // If the tile is not in the set of tile ids, color it black, else transparent
+                    Color color = (!currentIds.isEmpty() && !currentIds.contains(id))
+                            ? Color.BLACK
+                            : Color.TRANSPARENT;
+                    return new CellData(sprite, tile.rotation(), color);
+                }
+
+                if (group.isHover()) {
+                    Tile tileToPlace = state.tileToPlace();
+                    Sprite sprite = normalSpriteForTile(tileToPlace.id());
+                    Rotation rotation = rotationO.getValue();
+
+                    // Change color based on the possibility of placement
+                    Color color = LegalMoves.placement(state, pos, rotation) != null
+                            ? Color.TRANSPARENT
+                            : Color.WHITE;
+                    return new CellData(sprite, rotation, color);
+                }
+                return new CellData(emptyTileSprite, Rotation.NONE, ColorMap.fillColor(state.currentPlayer()));
+            }
+        }
     }
-
-    /**
-     * Private record to store the image, rotation, and color of a cell.
-     *
-     * @param image the image of the cell
-     * @param rotation the rotation of the cell
-     * @param color the color of the cell
-     */
-    private record CellData(Image image, Rotation rotation, Color color) {}
 }
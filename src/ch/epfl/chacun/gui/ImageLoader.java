@@ -1,10 +1,26 @@
 package ch.epfl.chacun.gui;
 
+import ch.epfl.chacun.Tiles;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Immutable class to help with the process of loading
- * images of tiles and markers from ressources.
+ * Class to help with the process of loading images of tiles and markers
+ * from ressources. The images are loaded in the background, so asking for an
+ * image never blocks the rendering (it is displayed once it is loaded), and
+ * the images are shared through a cache that keeps the most recently used
+ * ones within a memory budget. The normal images of all tiles and the marker
+ * can also be packed once into a single atlas, displayed through viewports.
  *
  * @author Alexis Grillet-Aubert (381587)
  * @author Jakub Kliment (380660)
@@ -41,6 +57,41 @@ public final class ImageLoader {
      */
     public static final int MARKER_FIT_SIZE = MARKER_PIXEL_SIZE / 2;
 
+    /**
+     * Memory budget of the cache of images, in bytes
+     */
+    private static final long CACHE_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * Number of bytes of a pixel of a decoded image
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * Cache of the images, in order from the least recently used
+     */
+    private static final Map<ImageKey, Image> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Number of columns of images in the atlas
+     */
+    private static final int ATLAS_COLUMNS = 10;
+
+    /**
+     * Index of the cell of the marker in the atlas, after the cells of the tiles
+     */
+    private static final int ATLAS_MARKER_CELL = Tiles.TILES.size();
+
+    // Memory used by the images of the cache, in bytes
+    private static long cacheSize = 0;
+
+    // Atlas of the normal images of the tiles and of the marker (null until it is
+    // packed), only read and written on the JavaFX application thread
+    private static final ReadOnlyObjectWrapper<Image> atlas = new ReadOnlyObjectWrapper<>();
+
+    // Image of the marker, used until the atlas is packed (null until it is needed)
+    private static Image markerImage = null;
+
     /**
      * Private constructor to prevent instantiation
      */
@@ -53,7 +104,7 @@ public final class ImageLoader {
      * @return the image for the tile with the given id
      */
     public static Image normalImageForTile(int id) {
-        return new Image(String.format("/%d/%02d.jpg", NORMAL_TILE_PIXEL_SIZE, id));
+        return imageForTile(NORMAL_TILE_PIXEL_SIZE, id);
     }
 
     /**
@@ -63,6 +114,178 @@ public final class ImageLoader {
      * @return the image for the marker with the given id
      */
     public static Image largeImageForTile(int id) {
-        return new Image(String.format("/%d/%02d.jpg", LARGE_TILE_PIXEL_SIZE, id));
+        return imageForTile(LARGE_TILE_PIXEL_SIZE, id);
+    }
+
+    /**
+     * Returns the normal sized sprite of the tile with the given id, which
+     * is in the atlas once it is packed, and the image of the tile before.
+     * Must be called on the JavaFX application thread.
+     *
+     * @param id the id of the tile
+     * @return the sprite of the tile with the given id
+     */
+    public static Sprite normalSpriteForTile(int id) {
+        if (atlas.get() == null) return new Sprite(normalImageForTile(id), null);
+        return new Sprite(atlas.get(), atlasViewport(id, NORMAL_TILE_PIXEL_SIZE));
+    }
+
+    /**
+     * Returns the sprite of the marker, which is in the atlas once it is
+     * packed, and the image of the marker before. Must be called on the
+     * JavaFX application thread.
+     *
+     * @return the sprite of the marker
+     */
+    public static Sprite markerSprite() {
+        if (atlas.get() != null)
+            return new Sprite(atlas.get(), atlasViewport(ATLAS_MARKER_CELL, MARKER_PIXEL_SIZE));
+        if (markerImage == null)
+            markerImage = new Image("/marker.png", true);
+        return new Sprite(markerImage, null);
+    }
+
+    /**
+     * Starts packing the normal images of all tiles and the marker into
+     * a single atlas, in the background. The images are decoded only once
+     * for the whole game, and the nodes displaying them share a single image.
+     * Once the atlas is packed, the sprites are taken from it, and the nodes
+     * already displaying sprites are told through the property of the atlas.
+     */
+    public static void packAtlas() {
+        Thread.ofVirtual().start(() -> {
+            int rows = (ATLAS_MARKER_CELL + ATLAS_COLUMNS) / ATLAS_COLUMNS;
+            WritableImage packed = new WritableImage(
+                    ATLAS_COLUMNS * NORMAL_TILE_PIXEL_SIZE, rows * NORMAL_TILE_PIXEL_SIZE);
+            PixelWriter writer = packed.getPixelWriter();
+
+            for (int id = 0; id < ATLAS_MARKER_CELL; id++)
+                packInto(writer, id, NORMAL_TILE_PIXEL_SIZE,
+                        String.format("/%d/%02d.jpg", NORMAL_TILE_PIXEL_SIZE, id));
+            packInto(writer, ATLAS_MARKER_CELL, MARKER_PIXEL_SIZE, "/marker.png");
+
+            Platform.runLater(() -> atlas.set(packed));
+        });
+    }
+
+    /**
+     * Returns the property of the atlas, which is null until the atlas is packed,
+     * and changes on the JavaFX application thread once it is. The nodes displaying
+     * sprites observe it to display them again from the atlas.
+     *
+     * @return the read-only property of the atlas
+     */
+    public static ReadOnlyObjectProperty<Image> atlasProperty() {
+        return atlas.getReadOnlyProperty();
+    }
+
+    /**
+     * Starts loading the images of the tile with the given id in the background,
+     * so that they are ready to be displayed when the tile is drawn. The normal
+     * image is only loaded until the atlas is packed, the board taking it from the
+     * atlas afterwards. Must be called on the JavaFX application thread.
+     *
+     * @param id the id of the tile
+     */
+    public static void prefetchTile(int id) {
+        if (atlas.get() == null) normalImageForTile(id);
+        largeImageForTile(id);
+    }
+
+    /**
+     * Private method that returns the image of the given pixel size with the given id,
+     * from the cache if it is there, otherwise loading it in the background. The least
+     * recently used images are removed from the cache when it is over its memory budget,
+     * the nodes that display them still keeping them.
+     *
+     * @param pixelSize the pixel size of the image
+     * @param id the id of the tile
+     * @return the image for the tile with the given id
+     */
+    private static synchronized Image imageForTile(int pixelSize, int id) {
+        ImageKey key = new ImageKey(pixelSize, id);
+        Image image = CACHE.get(key);
+        if (image != null) return image;
+
+        image = new Image(String.format("/%d/%02d.jpg", pixelSize, id), true);
+        CACHE.put(key, image);
+        cacheSize += key.byteSize();
+
+        Iterator<ImageKey> leastRecentlyUsed = CACHE.keySet().iterator();
+        while (cacheSize > CACHE_BUDGET) {
+            cacheSize -= leastRecentlyUsed.next().byteSize();
+            leastRecentlyUsed.remove();
+        }
+        return image;
+    }
+
+    /**
+     * Private method that decodes the image with the given path and copies it into the
+     * given cell of the atlas. An image that cannot be decoded leaves its cell empty.
+     *
+     * @param writer the writer of the pixels of the atlas
+     * @param cell the index of the cell of the image in the atlas
+     * @param pixelSize the pixel size of the image
+     * @param path the path of the image in the resources
+     */
+    private static void packInto(PixelWriter writer, int cell, int pixelSize, String path) {
+        Image image = new Image(path);
+        if (image.isError()) return;
+        writer.setPixels(
+                cell % ATLAS_COLUMNS * NORMAL_TILE_PIXEL_SIZE,
+                cell / ATLAS_COLUMNS * NORMAL_TILE_PIXEL_SIZE,
+                pixelSize, pixelSize, image.getPixelReader(), 0, 0);
+    }
+
+    /**
+     * Private method that returns the viewport of an image in the atlas.
+     *
+     * @param cell the index of the cell of the image in the atlas
+     * @param pixelSize the pixel size of the image
+     * @return the viewport of the image in the atlas
+     */
+    private static Rectangle2D atlasViewport(int cell, int pixelSize) {
+        return new Rectangle2D(
+                cell % ATLAS_COLUMNS * NORMAL_TILE_PIXEL_SIZE,
+                cell / ATLAS_COLUMNS * NORMAL_TILE_PIXEL_SIZE,
+                pixelSize, pixelSize);
+    }
+
+    /**
+     * Represents a part of an image to display, which is either a whole image
+     * or the part of the atlas delimited by a viewport.
+     *
+     * @param image the image containing the sprite
+     * @param viewport the part of the image to display (null for the whole image)
+     */
+    public record Sprite(Image image, Rectangle2D viewport) {
+
+        /**
+         * Displays the sprite in the given image view.
+         *
+         * @param imageView the image view to display the sprite in
+         */
+        public void displayIn(ImageView imageView) {
+            imageView.setImage(image);
+            imageView.setViewport(viewport);
+        }
+    }
+
+    /**
+     * Key of an image in the cache.
+     *
+     * @param pixelSize the pixel size of the image
+     * @param id the id of the tile
+     */
+    private record ImageKey(int pixelSize, int id) {
+
+        /**
+         * Returns the memory used by the decoded image, in bytes.
+         *
+         * @return the size of the image in bytes
+         */
+        private long byteSize() {
+            return (long) pixelSize * pixelSize * BYTES_PER_PIXEL;
+        }
     }
 }
@@ -44,6 +44,11 @@ public final class Main extends Application {
      */
     private final static int SCREEN_HEIGHT = 1080;
 
+    /**
+     * The number of tiles at the top of each deck whose images are loaded in advance.
+     */
+    private final static int PREFETCHED_TILES = 2;
+
     /**
      * The main method of the game which launches the game.
      *
@@ -111,7 +116,7 @@ public final class Main extends Application {
                 gameState -> gameState.messageBoard().messages());
 
         ObservableValue<Set<Occupant>> visibleOccupants = gameStateO.map(gameState-> {
-            Set<Occupant> occupants = gameState.board().occupants();
+            Set<Occupant> occupants = new HashSet<>(gameState.board().occupants());
             if (gameState.nextAction() == GameState.Action.OCCUPY_TILE)
                 occupants.addAll(gameState.lastTilePotentialOccupants());
             return occupants;
@@ -198,11 +203,31 @@ public final class Main extends Application {
         primaryStage.setHeight(SCREEN_HEIGHT);
         primaryStage.setWidth(SCREEN_WIDTH);
 
+        // Pack the images of the tiles of the board in the background
+        ImageLoader.packAtlas();
+
+        // Load the images of the next tiles of the decks in the background
+        gameStateO.addListener((o, oldState, newState) -> prefetchNextTiles(newState.tileDecks()));
+
         // Set the starting tile to be placed to start the game
         gameStateO.setValue(gameStateO.getValue().withStartingTilePlaced());
         primaryStage.show();
     }
 
+    /**
+     * Private static helper method that starts loading the images of the
+     * tiles at the top of the normal and menhir decks, which can be drawn next.
+     *
+     * @param tileDecks the tile decks of the game
+     */
+    private static void prefetchNextTiles(TileDecks tileDecks) {
+        for (Tile.Kind kind : List.of(Tile.Kind.NORMAL, Tile.Kind.MENHIR)) {
+            List<Tile> deck = kind == Tile.Kind.NORMAL ? tileDecks.normalTiles() : tileDecks.menhirTiles();
+            for (int i = 0; i < Math.min(PREFETCHED_TILES, deck.size()); i++)
+                ImageLoader.prefetchTile(deck.get(i).id());
+        }
+    }
+
     /**
      * Private static helper method that adds a new
      * action to the list of actions.
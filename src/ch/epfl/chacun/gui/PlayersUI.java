@@ -12,7 +12,6 @@ import javafx.scene.shape.Circle;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
 
-import java.util.Map;
 
 import static ch.epfl.chacun.Occupant.*;
 
@@ -47,9 +46,7 @@ public final class PlayersUI {
         box.getStylesheets().add("players.css");
         box.setId("players");
 
-        // Observable values of the players and their points
-        ObservableValue<Map<PlayerColor, Integer>> points =
-                gameState.map(state -> state.messageBoard().points());
+        // Observable value of the current player
         ObservableValue<PlayerColor> currentPlayer = gameState.map(GameState::currentPlayer);
 
         // For each player, create a text flow with the player's name, points and occupants
@@ -67,9 +64,9 @@ public final class PlayersUI {
             // Circle with the player's color to improve visibility
             Circle circle = new Circle(5, ColorMap.fillColor(player));
 
-            ObservableValue<String> playerPoints = points.map(
-                    individualPoints -> STR." \{textMaker.playerName(player)} : " +
-                            STR."\{textMaker.points(individualPoints.getOrDefault(player, 0))}\n");
+            ObservableValue<String> playerPoints = gameState.map(
+                    state -> STR." \{textMaker.playerName(player)} : " +
+                            STR."\{textMaker.points(state.messageBoard().points(player))}\n");
 
             // Create the occupants for the player
             Text textPoints = new Text();
@@ -0,0 +1,484 @@
+package ch.epfl.chacun.net;
+
+import ch.epfl.chacun.*;
+import ch.epfl.chacun.ActionEncoder.StateAction;
+import ch.epfl.chacun.sim.Replay;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless server hosting games played by remote clients, which exchange the
+ * same encoded actions as the ones of the user interface over sockets.
+ * Each session of a game is an actor: its state, its actions and its clients are
+ * only touched by the virtual thread of the session, which takes the messages sent
+ * to it one at a time, so that the sessions never share any lock.
+ * The protocol is made of lines of text:
+ * <ul>
+ *     <li>a client first sends {@code JOIN <session> <seed> <players>}, which creates
+ *     the game of the session with the given seed and number of players if it does
+ *     not exist yet, and the server answers {@code JOINED <count>} followed by the
+ *     count actions already played, each as {@code ACTION <action>};</li>
+ *     <li>the client then sends encoded actions, one per line, and each valid action
+ *     is sent to all clients of the session as {@code ACTION <action>}, while an
+ *     invalid one is only answered to its sender by {@code INVALID <action>};</li>
+ *     <li>a first line that is not a valid join line is answered by {@code ERROR},
+ *     and the client is disconnected.</li>
+ * </ul>
+ * A session ends when its last client leaves it, and joining it again starts a new game.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class GameServer implements AutoCloseable {
+
+    /**
+     * Default port of the server started by the main method
+     */
+    private static final int DEFAULT_PORT = 4096;
+
+    /**
+     * Number of seconds between two reports of the main method
+     */
+    private static final int REPORT_SECONDS = 10;
+
+    /**
+     * Maximum number of lines waiting to be sent to a client, beyond which
+     * the client is disconnected (more than the actions of a whole game)
+     */
+    private static final int OUTBOX_CAPACITY = 1024;
+
+    // Socket accepting the clients and sessions by their name
+    private final ServerSocket serverSocket;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // Whether the server was closed
+    private volatile boolean closed;
+
+    // Number of valid actions played in all sessions and start time of the server
+    private final LongAdder actions = new LongAdder();
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Private constructor that starts accepting clients on the given socket.
+     *
+     * @param serverSocket the socket of the server
+     */
+    private GameServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+        Thread.ofVirtual().name("game-server").start(this::acceptClients);
+    }
+
+    /**
+     * Starts a server accepting clients on the given port.
+     *
+     * @param port the port of the server (0 for any free port)
+     * @return the started server
+     * @throws IOException if the port cannot be used
+     */
+    public static GameServer start(int port) throws IOException {
+        return new GameServer(new ServerSocket(port));
+    }
+
+    /**
+     * Starts a server and prints a report of its activity regularly.
+     * The argument is --port=#, where # is the port of the server.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the port cannot be used
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = DEFAULT_PORT;
+        for (String arg : args) {
+            String[] parameter = arg.replaceFirst("^--", "").split("=", 2);
+            Preconditions.checkArgument(parameter.length == 2 && parameter[0].equals("port"));
+            port = Integer.parseInt(parameter[1]);
+        }
+
+        try (GameServer server = start(port)) {
+            System.out.printf("Listening on port %d%n", server.port());
+            while (true) {
+                Thread.sleep(REPORT_SECONDS * 1000L);
+                System.out.println(server.stats());
+            }
+        }
+    }
+
+    /**
+     * Returns the port the server accepts clients on.
+     *
+     * @return the port of the server
+     */
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the statistics of the server since it was started.
+     *
+     * @return the statistics of the server
+     */
+    public Stats stats() {
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        long actionCount = actions.sum();
+        return new Stats(sessions.size(), actionCount,
+                actionCount / seconds / Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Stops the server: no client is accepted anymore,
+     * and the clients of all sessions are disconnected.
+     *
+     * @throws IOException if the socket of the server cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        for (Session session : sessions.values())
+            session.mailbox.add(new Stop());
+        serverSocket.close();
+    }
+
+    /**
+     * Private method that accepts the clients until the server is closed,
+     * each client being read by its own virtual thread.
+     */
+    private void acceptClients() {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().start(() -> readClient(socket));
+            }
+        } catch (IOException e) {
+            // The server was closed
+        }
+    }
+
+    /**
+     * Private method that reads the lines of a client until it disconnects,
+     * and sends them to the session the client joined.
+     *
+     * @param socket the socket of the client
+     */
+    private void readClient(Socket socket) {
+        Session session = null;
+        Client client = null;
+        try (socket) {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            client = new Client(socket, new BufferedWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)));
+
+            session = join(reader.readLine(), client);
+            if (session == null) {
+                client.sendNow("ERROR");
+                return;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null)
+                session.mailbox.add(new Play(client, line));
+        } catch (IOException e) {
+            // The client disconnected
+        } finally {
+            if (session != null)
+                session.mailbox.add(new Leave(client));
+            else if (client != null)
+                client.close();
+        }
+    }
+
+    /**
+     * Private method that makes a client join the session of a join line, which is
+     * created if it does not exist yet. The session is told that the client joins it
+     * while its entry in the map of the sessions is being computed, so that it cannot
+     * end meanwhile, and the server being closed is checked again afterwards, so that
+     * the client cannot join a session that is never stopped.
+     *
+     * @param line the join line sent by a client (can be null)
+     * @param client the client joining the session
+     * @return the joined session, or null if the line is not a valid join line, if
+     *         the session exists with another seed or number of players or if the
+     *         server is closed
+     */
+    private Session join(String line, Client client) {
+        String[] parts = line != null ? line.split(" ") : new String[0];
+        if (parts.length != 4 || !parts[0].equals("JOIN")) return null;
+
+        long seed;
+        int playerCount;
+        try {
+            seed = Long.parseUnsignedLong(parts[2]);
+            playerCount = Integer.parseInt(parts[3]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (playerCount < 2 || playerCount > PlayerColor.ALL.size()) return null;
+
+        if (closed) return null;
+        Session session = sessions.compute(parts[1], (name, s) -> {
+            if (s == null) s = new Session(name, seed, playerCount);
+            if (s.seed == seed && s.playerCount == playerCount) s.mailbox.add(new Join(client));
+            return s;
+        });
+        if (session.seed != seed || session.playerCount != playerCount) return null;
+
+        if (closed) {
+            session.mailbox.add(new Stop());
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Represents the statistics of a server.
+     *
+     * @param sessions the number of sessions being played
+     * @param actions the number of valid actions played in all sessions
+     * @param actionsPerSecondPerCore the number of actions played per second and per core
+     */
+    public record Stats(int sessions, long actions, double actionsPerSecondPerCore) {
+
+        /**
+         * Returns the textual report of the statistics.
+         *
+         * @return the report of the statistics
+         */
+        @Override
+        public String toString() {
+            return String.format("%d sessions, %d actions, %.1f actions/s per core",
+                    sessions, actions, actionsPerSecondPerCore);
+        }
+    }
+
+    /**
+     * Private messages that can be sent to a session.
+     */
+    private sealed interface Message permits Join, Play, Leave, Stop {}
+
+    /**
+     * Private message of a client joining a session.
+     *
+     * @param client the client
+     */
+    private record Join(Client client) implements Message {}
+
+    /**
+     * Private message of a client playing an action.
+     *
+     * @param client the client
+     * @param action the encoded action
+     */
+    private record Play(Client client, String action) implements Message {}
+
+    /**
+     * Private message of a client leaving a session.
+     *
+     * @param client the client
+     */
+    private record Leave(Client client) implements Message {}
+
+    /**
+     * Private message stopping a session.
+     */
+    private record Stop() implements Message {}
+
+    /**
+     * Private client of a session. The lines sent to the client wait in its outbox
+     * and are written to its socket by its own virtual thread, so that a client
+     * reading its lines slowly never blocks the session or the other clients.
+     */
+    private static final class Client {
+
+        // Socket of the client and writer of the lines sent to it
+        private final Socket socket;
+        private final BufferedWriter writer;
+
+        // Lines waiting to be written and thread writing them
+        private final BlockingQueue<String> outbox = new ArrayBlockingQueue<>(OUTBOX_CAPACITY);
+        private final Thread writerThread;
+
+        /**
+         * Constructor of a client, which starts the thread writing its lines.
+         *
+         * @param socket the socket of the client
+         * @param writer the writer of the lines sent to the client
+         */
+        private Client(Socket socket, BufferedWriter writer) {
+            this.socket = socket;
+            this.writer = writer;
+            this.writerThread = Thread.ofVirtual().start(this::writeLines);
+        }
+
+        /**
+         * Sends a line to the client, without waiting for it to be written.
+         * A client whose outbox is full reads too slowly, and is disconnected.
+         *
+         * @param line the line to send
+         * @return true if the line will be sent, false if the client is disconnected
+         */
+        private boolean send(String line) {
+            if (outbox.offer(line)) return true;
+            close();
+            return false;
+        }
+
+        /**
+         * Writes a line to the client directly, before it joins a session
+         * (the thread writing the lines of the outbox having none to write then).
+         *
+         * @param line the line to write
+         * @throws IOException if the client is disconnected
+         */
+        private void sendNow(String line) throws IOException {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+        }
+
+        /**
+         * Disconnects the client and stops the thread writing its lines.
+         */
+        private void close() {
+            writerThread.interrupt();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The client is already disconnected
+            }
+        }
+
+        /**
+         * Private method that writes the lines of the outbox until the client
+         * is disconnected, the writer being flushed once the outbox is empty.
+         */
+        private void writeLines() {
+            try {
+                while (true) {
+                    writer.write(outbox.take());
+                    writer.newLine();
+                    if (outbox.isEmpty()) writer.flush();
+                }
+            } catch (InterruptedException | IOException e) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Private session of a game, which is an actor taking the messages of its
+     * mailbox one at a time on its own virtual thread. Its state, actions and
+     * clients are only read and written by that thread.
+     */
+    private final class Session {
+
+        // Name of the session, seed and number of players of the game
+        private final String name;
+        private final long seed;
+        private final int playerCount;
+
+        // Messages sent to the session
+        private final BlockingQueue<Message> mailbox = new LinkedBlockingQueue<>();
+
+        // State of the game, actions played and clients of the session
+        private GameState state;
+        private final List<String> playedActions = new ArrayList<>();
+        private final List<Client> clients = new ArrayList<>();
+
+        /**
+         * Constructor of a session, which starts its thread.
+         *
+         * @param name the name of the session
+         * @param seed the seed of the game
+         * @param playerCount the number of players of the game
+         */
+        private Session(String name, long seed, int playerCount) {
+            this.name = name;
+            this.seed = seed;
+            this.playerCount = playerCount;
+            Thread.ofVirtual().name(STR."session-\{Long.toUnsignedString(seed)}").start(this::run);
+        }
+
+        /**
+         * Private method that takes the messages of the mailbox
+         * until the session is stopped or its last client leaves.
+         */
+        private void run() {
+            state = Replay.initialState(seed, PlayerColor.ALL.subList(0, playerCount));
+            try {
+                while (true) {
+                    switch (mailbox.take()) {
+                        case Join(Client client) -> {
+                            boolean sent = client.send(STR."JOINED \{playedActions.size()}");
+                            for (String action : playedActions)
+                                sent = sent && client.send(STR."ACTION \{action}");
+                            if (sent) clients.add(client);
+                        }
+                        case Play(Client client, String action) -> play(client, action);
+                        case Leave(Client client) -> {
+                            if (leave(client)) return;
+                        }
+                        case Stop() -> {
+                            for (Client client : clients)
+                                client.close();
+                            return;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                // The session is stopped
+            }
+        }
+
+        /**
+         * Private method that removes a client leaving the session, and removes the
+         * session from the server if it was its last client. No client can be joining
+         * it then, since joins are only sent to a session while its entry is computed,
+         * which is also when the session checks that its mailbox is empty.
+         *
+         * @param client the client leaving the session
+         * @return true if the session ended, false otherwise
+         */
+        private boolean leave(Client client) {
+            clients.remove(client);
+            client.close();
+            if (!clients.isEmpty()) return false;
+
+            sessions.computeIfPresent(name, (k, s) -> s == this && mailbox.isEmpty() ? null : s);
+            return sessions.get(name) != this;
+        }
+
+        /**
+         * Private method that applies an action sent by a client, and sends it to
+         * all clients if it is valid, the clients that are disconnected (or too slow
+         * to read the lines sent to them) being removed. The actions of a client that
+         * is not in the session (anymore) are ignored.
+         *
+         * @param client the client that sent the action
+         * @param action the encoded action
+         */
+        private void play(Client client, String action) {
+            if (!clients.contains(client)) return;
+
+            StateAction stateAction = ActionEncoder.decodeAndApply(state, action);
+            if (stateAction == null) {
+                if (!client.send(STR."INVALID \{action}")) clients.remove(client);
+                return;
+            }
+
+            state = stateAction.state();
+            playedActions.add(action);
+            actions.increment();
+            clients.removeIf(c -> !c.send(STR."ACTION \{action}"));
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.*;
+import ch.epfl.chacun.ActionEncoder.StateAction;
+import ch.epfl.chacun.LegalMoves.Move;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+import java.util.stream.IntStream;
+
+/**
+ * Move policy that chooses its actions with a Monte Carlo tree search
+ * over the transitions of the game state, within a time budget per action.
+ * The search is parallelised at the root: every worker builds its own tree
+ * from a copy of the state where the decks that are not yet known to the
+ * players are shuffled, and the visits of the actions are summed at the end.
+ * A playout plays random actions until the end of the game and rewards the
+ * winners with the points of the message board.
+ * Since the search stops after a given time, its choices are not reproducible.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class MctsPolicy implements MovePolicy {
+
+    /**
+     * Exploration constant of the upper confidence bound of the tree search
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    // Time given to choose an action and number of workers searching
+    private final long budgetNanos;
+    private final int workers;
+
+    // Playouts made by the policy since its creation and the time spent on them
+    private final AtomicLong playouts = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+
+    /**
+     * Constructor of the policy.
+     *
+     * @param budget the time given to choose an action
+     * @param workers the number of trees searched in parallel
+     * @throws IllegalArgumentException if the budget is not positive
+     *                                  or if the number of workers is not positive
+     */
+    public MctsPolicy(Duration budget, int workers) {
+        Preconditions.checkArgument(budget.isPositive() && workers > 0);
+        this.budgetNanos = budget.toNanos();
+        this.workers = workers;
+    }
+
+    /**
+     * Constructor of the policy that searches one tree per available processor.
+     *
+     * @param budget the time given to choose an action
+     * @throws IllegalArgumentException if the budget is not positive
+     */
+    public MctsPolicy(Duration budget) {
+        this(budget, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Plays the action of the current player that was visited the most
+     * by the tree searches, or the only legal action if there is one.
+     *
+     * @param state the state of the game, whose next action is not START_GAME nor END_GAME
+     * @param random the random generator of the game
+     * @return the new game state and the encoded action that was played
+     * @throws IllegalArgumentException if the game has not started or has ended
+     */
+    @Override
+    public StateAction play(GameState state, RandomGenerator random) {
+        List<Move> moves = LegalMoves.of(state);
+        Preconditions.checkArgument(!moves.isEmpty());
+        if (moves.size() == 1) return moves.getFirst().applyTo(state);
+
+        long seed = random.nextLong();
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int[] visits = IntStream.range(0, workers)
+                .parallel()
+                .mapToObj(worker -> search(state, moves, seed + worker, deadline))
+                .reduce(new int[moves.size()], MctsPolicy::sum);
+        searchNanos.addAndGet(System.nanoTime() - start);
+
+        int best = 0;
+        for (int i = 1; i < visits.length; i++)
+            if (visits[i] > visits[best]) best = i;
+        return moves.get(best).applyTo(state);
+    }
+
+    /**
+     * Returns the number of playouts made per second of search
+     * since the creation of the policy, summed over all workers.
+     *
+     * @return the number of playouts per second
+     */
+    public double playoutsPerSecond() {
+        long nanos = searchNanos.get();
+        return nanos == 0 ? 0 : playouts.get() * 1e9 / nanos;
+    }
+
+    /**
+     * Private function that searches a tree from the given state until the deadline.
+     *
+     * @param state the state where an action has to be chosen
+     * @param moves the legal moves of the state
+     * @param seed the seed of the worker
+     * @param deadline the time at which the search stops, as given by System.nanoTime
+     * @return the number of visits of each move
+     */
+    private int[] search(GameState state, List<Move> moves, long seed, long deadline) {
+        RandomGenerator random = RandomGeneratorFactory.getDefault().create(seed);
+        Node root = new Node(determinized(state, random), null, moves);
+
+        long count = 0;
+        do {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+
+            // Selection of a node that is not fully expanded
+            while (node.untried.isEmpty() && !node.children.isEmpty()) {
+                node = node.bestChild();
+                path.add(node);
+            }
+
+            // Expansion of one of its moves
+            if (!node.untried.isEmpty()) {
+                Move move = node.untried.remove(random.nextInt(node.untried.size()));
+                GameState next = move.applyTo(node.state).state();
+                Node child = new Node(next, node.state.currentPlayer(), LegalMoves.of(next));
+                node.children.add(child);
+                if (node == root) child.rootMove = moves.indexOf(move);
+                node = child;
+                path.add(node);
+            }
+
+            // Playout and backpropagation of the rewards
+            Map<PlayerColor, Double> rewards = rewards(playout(node.state, random));
+            for (Node visited : path) {
+                visited.visits++;
+                if (visited.player != null)
+                    visited.reward += rewards.getOrDefault(visited.player, 0.0);
+            }
+            count++;
+        } while (System.nanoTime() < deadline);
+        playouts.addAndGet(count);
+
+        int[] visits = new int[moves.size()];
+        for (Node child : root.children)
+            visits[child.rootMove] = child.visits;
+        return visits;
+    }
+
+    /**
+     * Private function that plays random moves until the end of the game.
+     *
+     * @param state the state to start from
+     * @param random the random generator of the worker
+     * @return the final state of the game
+     */
+    private static GameState playout(GameState state, RandomGenerator random) {
+        while (state.nextAction() != GameState.Action.END_GAME) {
+            List<Move> moves = LegalMoves.of(state);
+            state = moves.get(random.nextInt(moves.size())).applyTo(state).state();
+        }
+        return state;
+    }
+
+    /**
+     * Private function that returns the reward of each player at the end of a game,
+     * the winners sharing a reward of 1 and the other players getting nothing.
+     *
+     * @param state the final state of the game
+     * @return the reward of each winner
+     */
+    private static Map<PlayerColor, Double> rewards(GameState state) {
+        Map<PlayerColor, Integer> points = state.messageBoard().points();
+        Map<PlayerColor, Double> rewards = new EnumMap<>(PlayerColor.class);
+        if (points.isEmpty()) {
+            for (PlayerColor player : state.players())
+                rewards.put(player, 1.0 / state.players().size());
+            return rewards;
+        }
+        int maxPoints = Collections.max(points.values());
+        long winners = points.values().stream().filter(p -> p == maxPoints).count();
+        for (Map.Entry<PlayerColor, Integer> entry : points.entrySet())
+            if (entry.getValue() == maxPoints)
+                rewards.put(entry.getKey(), 1.0 / winners);
+        return rewards;
+    }
+
+    /**
+     * Private function that returns a copy of the state where the normal and menhir
+     * decks are shuffled, since the players do not know the order of their tiles.
+     *
+     * @param state the state to copy
+     * @param random the random generator of the worker
+     * @return the state with its decks shuffled
+     */
+    private static GameState determinized(GameState state, RandomGenerator random) {
+        TileDecks decks = state.tileDecks();
+        List<Tile> normalTiles = new ArrayList<>(decks.normalTiles());
+        List<Tile> menhirTiles = new ArrayList<>(decks.menhirTiles());
+        Collections.shuffle(normalTiles, random);
+        Collections.shuffle(menhirTiles, random);
+        return new GameState(state.players(),
+                new TileDecks(decks.startTiles(), normalTiles, menhirTiles),
+                state.tileToPlace(),
+                state.board(),
+                state.nextAction(),
+                state.messageBoard());
+    }
+
+    /**
+     * Private function that adds the visits of two searches.
+     *
+     * @param visits1 the visits of each move in the first search
+     * @param visits2 the visits of each move in the second search
+     * @return the total visits of each move
+     */
+    private static int[] sum(int[] visits1, int[] visits2) {
+        int[] visits = new int[visits1.length];
+        for (int i = 0; i < visits.length; i++)
+            visits[i] = visits1[i] + visits2[i];
+        return visits;
+    }
+
+    /**
+     * Node of a search tree, that is a state reached by a move.
+     */
+    private static final class Node {
+
+        // State of the node and player who played the move that reached it (null for the root)
+        private final GameState state;
+        private final PlayerColor player;
+
+        // Moves of the state without a child yet and children of the node
+        private final List<Move> untried;
+        private final List<Node> children = new ArrayList<>();
+
+        // Index of the move among the moves of the root (for its children only)
+        private int rootMove;
+
+        // Number of playouts through the node and sum of their rewards for its player
+        private int visits;
+        private double reward;
+
+        /**
+         * Constructor of a node.
+         *
+         * @param state the state of the node
+         * @param player the player who reached the node (null for the root)
+         * @param moves the legal moves of the state
+         */
+        private Node(GameState state, PlayerColor player, List<Move> moves) {
+            this.state = state;
+            this.player = player;
+            this.untried = new ArrayList<>(moves);
+        }
+
+        /**
+         * Returns the child with the highest upper confidence bound.
+         *
+         * @return the best child to explore
+         */
+        private Node bestChild() {
+            double logVisits = Math.log(visits);
+            Node best = null;
+            double bestBound = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                double bound = child.reward / child.visits
+                        + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (bound > bestBound) {
+                    best = child;
+                    bestBound = bound;
+                }
+            }
+            return best;
+        }
+    }
+}
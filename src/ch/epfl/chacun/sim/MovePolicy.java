@@ -0,0 +1,29 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.ActionEncoder.StateAction;
+import ch.epfl.chacun.GameState;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents the way a player chooses the next action to play,
+ * used to play games without any user interface.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+@FunctionalInterface
+public interface MovePolicy {
+
+    /**
+     * Chooses and plays the next action of the current player of the given state,
+     * that is placing a tile, occupying the last placed tile or retaking a pawn.
+     * All random choices must be made with the given generator,
+     * so that a game played with the same seed is always the same.
+     *
+     * @param state the state of the game, whose next action is not START_GAME nor END_GAME
+     * @param random the random generator of the game
+     * @return the new game state and the encoded action that was played
+     */
+    StateAction play(GameState state, RandomGenerator random);
+}
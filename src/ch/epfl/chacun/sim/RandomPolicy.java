@@ -0,0 +1,45 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.ActionEncoder.StateAction;
+import ch.epfl.chacun.GameState;
+import ch.epfl.chacun.LegalMoves;
+import ch.epfl.chacun.Preconditions;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Move policy that chooses uniformly among all legal actions,
+ * where not placing or not retaking an occupant is one of them.
+ * It is the baseline against which other policies are compared.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class RandomPolicy implements MovePolicy {
+
+    /**
+     * The only instance of the policy, since it has no state
+     */
+    public static final RandomPolicy INSTANCE = new RandomPolicy();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private RandomPolicy() {}
+
+    /**
+     * Plays a uniformly random legal action for the current player.
+     *
+     * @param state the state of the game, whose next action is not START_GAME nor END_GAME
+     * @param random the random generator of the game
+     * @return the new game state and the encoded action that was played
+     * @throws IllegalArgumentException if the game has not started or has ended
+     */
+    @Override
+    public StateAction play(GameState state, RandomGenerator random) {
+        List<LegalMoves.Move> moves = LegalMoves.of(state);
+        Preconditions.checkArgument(!moves.isEmpty());
+        return moves.get(random.nextInt(moves.size())).applyTo(state);
+    }
+}
@@ -0,0 +1,286 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.*;
+import ch.epfl.chacun.ActionEncoder.StateAction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.random.RandomGeneratorFactory;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable replay of a game, rebuilt without any user interface from its seed
+ * and the log of its encoded actions, as they are exchanged by the players.
+ * The states of the game are kept every given number of actions, so that
+ * any state of the game can be reached by applying at most that number of
+ * actions to the closest of them. Game logs can also be validated in bulk.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class Replay {
+
+    /**
+     * Default number of actions between two kept states
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+
+    // Encoded actions of the game and number of actions between two kept states
+    private final List<String> actions;
+    private final int interval;
+
+    // States after every interval actions, and index of the action
+    // placing the tile of each turn
+    private final List<GameState> checkpoints;
+    private final int[] placements;
+
+    // State after all actions
+    private final GameState finalState;
+
+    /**
+     * Private constructor that replays all actions from the initial state.
+     *
+     * @param initial the state of the game before the first action
+     * @param actions the encoded actions
+     * @param interval the number of actions between two kept states
+     * @throws IllegalArgumentException if the interval is not positive
+     *                                  or if an action is invalid
+     */
+    private Replay(GameState initial, List<String> actions, int interval) {
+        Preconditions.checkArgument(interval > 0);
+        this.actions = List.copyOf(actions);
+        this.interval = interval;
+
+        List<GameState> checkpoints = new ArrayList<>();
+        int[] placements = new int[this.actions.size()];
+        int turns = 0;
+        GameState state = initial;
+        for (int i = 0; i < this.actions.size(); i++) {
+            if (i % interval == 0) checkpoints.add(state);
+            if (state.nextAction() == GameState.Action.PLACE_TILE) placements[turns++] = i;
+
+            StateAction stateAction = ActionEncoder.decodeAndApply(state, this.actions.get(i));
+            Preconditions.checkArgument(stateAction != null);
+            state = stateAction.state();
+        }
+        if (this.actions.size() % interval == 0) checkpoints.add(state);
+
+        this.checkpoints = List.copyOf(checkpoints);
+        this.placements = Arrays.copyOf(placements, turns);
+        this.finalState = state;
+    }
+
+    /**
+     * Replays the given actions from the given state.
+     *
+     * @param initial the state of the game before the first action
+     * @param actions the encoded actions
+     * @param interval the number of actions between two kept states
+     * @return the replay of the actions
+     * @throws IllegalArgumentException if the interval is not positive
+     *                                  or if an action is invalid
+     */
+    public static Replay of(GameState initial, List<String> actions, int interval) {
+        return new Replay(initial, actions, interval);
+    }
+
+    /**
+     * Replays the given actions of the game with the given seed and players,
+     * keeping the states every default number of actions.
+     *
+     * @param seed the seed of the game
+     * @param players the players of the game, in the order they play
+     * @param actions the encoded actions
+     * @return the replay of the game
+     * @throws IllegalArgumentException if there are less than 2 players
+     *                                  or if an action is invalid
+     */
+    public static Replay of(long seed, List<PlayerColor> players, List<String> actions) {
+        return of(initialState(seed, players), actions, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Returns the state of the game with the given seed and players
+     * before its first action, that is with its starting tile placed.
+     * The tiles are shuffled the same way as in the user interface.
+     *
+     * @param seed the seed of the game
+     * @param players the players of the game, in the order they play
+     * @return the state of the game before its first action
+     * @throws IllegalArgumentException if there are less than 2 players
+     */
+    public static GameState initialState(long seed, List<PlayerColor> players) {
+        return Simulator.initialState(players, RandomGeneratorFactory.getDefault().create(seed))
+                .withStartingTilePlaced();
+    }
+
+    /**
+     * Returns the encoded actions of the game.
+     *
+     * @return the unmodifiable list of actions
+     */
+    public List<String> actions() {
+        return actions;
+    }
+
+    /**
+     * Returns the number of turns of the game, that is the number of placed tiles.
+     *
+     * @return the number of turns
+     */
+    public int turnCount() {
+        return placements.length;
+    }
+
+    /**
+     * Returns the state of the game after the given number of actions,
+     * starting from the closest kept state.
+     *
+     * @param actionCount the number of actions applied
+     * @return the state after the given number of actions
+     * @throws IndexOutOfBoundsException if the number of actions is negative
+     *                                   or greater than the number of actions
+     */
+    public GameState stateAfter(int actionCount) {
+        Objects.checkIndex(actionCount, actions.size() + 1);
+        int checkpoint = actionCount / interval;
+        GameState state = checkpoints.get(checkpoint);
+        for (int i = checkpoint * interval; i < actionCount; i++)
+            state = ActionEncoder.decodeAndApply(state, actions.get(i)).state();
+        return state;
+    }
+
+    /**
+     * Fast-forwards to the given turn, returning the state of the
+     * game where the tile of the turn is about to be placed.
+     *
+     * @param turn the index of the turn, starting from 0
+     * @return the state at the beginning of the given turn
+     * @throws IndexOutOfBoundsException if there is no such turn
+     */
+    public GameState stateAtTurn(int turn) {
+        return stateAfter(placements[Objects.checkIndex(turn, placements.length)]);
+    }
+
+    /**
+     * Returns the state of the game after all its actions.
+     *
+     * @return the final state
+     */
+    public GameState finalState() {
+        return finalState;
+    }
+
+    /**
+     * Returns the index of the first action of the log that is invalid, going
+     * through the actions without keeping any state of the game.
+     *
+     * @param log the log of the game
+     * @return the index of the first invalid action, or -1 if all actions are valid
+     * @throws IllegalArgumentException if there are less than 2 players
+     */
+    public static int firstInvalidAction(GameLog log) {
+        GameState state = initialState(log.seed(), log.players());
+        for (int i = 0; i < log.actions().size(); i++) {
+            StateAction stateAction = ActionEncoder.decodeAndApply(state, log.actions().get(i));
+            if (stateAction == null) return i;
+            state = stateAction.state();
+        }
+        return -1;
+    }
+
+    /**
+     * Validates the given logs in parallel.
+     *
+     * @param logs the logs of the games
+     * @return the index of the first invalid action of each log
+     *         (or -1 if all its actions are valid), in the order of the logs
+     * @throws IllegalArgumentException if a log has less than 2 players
+     */
+    public static int[] firstInvalidActions(List<GameLog> logs) {
+        return IntStream.range(0, logs.size())
+                .parallel()
+                .map(i -> firstInvalidAction(logs.get(i)))
+                .toArray();
+    }
+
+    /**
+     * Validates the logs of the given file and prints how many are valid and
+     * how many logs were validated per second. The file contains one log per
+     * line, made of the seed, the number of players and the encoded actions,
+     * separated by spaces.
+     *
+     * @param args the path of the file of logs
+     * @throws IOException if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Preconditions.checkArgument(args.length == 1);
+        List<GameLog> logs = Files.readAllLines(Path.of(args[0])).stream()
+                .filter(line -> !line.isBlank())
+                .map(GameLog::parse)
+                .toList();
+
+        long start = System.nanoTime();
+        int[] invalid = firstInvalidActions(logs);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long valid = Arrays.stream(invalid).filter(i -> i < 0).count();
+        System.out.printf("%d logs, %d valid, %d invalid in %.2f s: %.1f logs/s%n",
+                logs.size(), valid, logs.size() - valid, seconds, logs.size() / seconds);
+        for (int i = 0; i < invalid.length; i++)
+            if (invalid[i] >= 0)
+                System.out.printf("log %d: invalid action %d%n", i, invalid[i]);
+    }
+
+    /**
+     * Represents the log of a game, that is what is needed to replay it.
+     *
+     * @param seed the seed of the game
+     * @param players the players of the game, in the order they play
+     * @param actions the encoded actions of the game
+     */
+    public record GameLog(long seed, List<PlayerColor> players, List<String> actions) {
+
+        /**
+         * Compact constructor that ensures immutability
+         * by copying the players and the actions.
+         */
+        public GameLog {
+            players = List.copyOf(players);
+            actions = List.copyOf(actions);
+        }
+
+        /**
+         * Parses a log made of the seed, the number of players (whose colors are
+         * the first colors) and the encoded actions, separated by spaces.
+         *
+         * @param line the textual log
+         * @return the log
+         * @throws IllegalArgumentException if the log is malformed
+         */
+        public static GameLog parse(String line) {
+            String[] parts = line.trim().split("\\s+");
+            Preconditions.checkArgument(parts.length >= 2);
+            int playerCount = Integer.parseInt(parts[1]);
+            Preconditions.checkArgument(playerCount >= 2 && playerCount <= PlayerColor.ALL.size());
+            return new GameLog(
+                    Long.parseUnsignedLong(parts[0]),
+                    PlayerColor.ALL.subList(0, playerCount),
+                    List.of(parts).subList(2, parts.length));
+        }
+
+        /**
+         * Returns the textual form of the log, as read by parse.
+         *
+         * @return the textual log
+         */
+        public String format() {
+            StringJoiner joiner = new StringJoiner(" ");
+            joiner.add(Long.toUnsignedString(seed)).add(String.valueOf(players.size()));
+            actions.forEach(joiner::add);
+            return joiner.toString();
+        }
+    }
+}
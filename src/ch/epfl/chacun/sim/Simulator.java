@@ -0,0 +1,254 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.*;
+import ch.epfl.chacun.ActionEncoder.StateAction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Plays whole games without any user interface, each player choosing
+ * its actions with a move policy. Batches of seeded games are played in
+ * parallel on all cores, a game being entirely determined by its seed
+ * and policies, whatever the thread that plays it.
+ * It is used to test the balance of the game and to load the engine.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class Simulator {
+
+    /**
+     * Default number of games played by the main method
+     */
+    private static final int DEFAULT_GAMES = 1_000;
+
+    /**
+     * Default number of players of the games played by the main method
+     */
+    private static final int DEFAULT_PLAYERS = 2;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Simulator() {}
+
+    /**
+     * Plays batches of games where all players play randomly and prints a report.
+     * The arguments are --games=#, --players=# and --seed=#, where # is
+     * the number of games, the number of players and the seed of the first game.
+     * With --mcts=#, the first player uses a Monte Carlo tree search
+     * with # milliseconds per action instead. With --log=#, the logs of
+     * the games are written to the file #, so that they can be replayed.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the logs cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        for (String arg : args) {
+            String[] parameter = arg.replaceFirst("^--", "").split("=", 2);
+            Preconditions.checkArgument(parameter.length == 2);
+            parameters.put(parameter[0], parameter[1]);
+        }
+        int games = Integer.parseInt(parameters.getOrDefault("games", String.valueOf(DEFAULT_GAMES)));
+        int players = Integer.parseInt(parameters.getOrDefault("players", String.valueOf(DEFAULT_PLAYERS)));
+        long seed = parameters.containsKey("seed")
+                ? Long.parseUnsignedLong(parameters.get("seed"))
+                : RandomGeneratorFactory.getDefault().create().nextLong();
+
+        List<MovePolicy> policies = new ArrayList<>(Collections.nCopies(players, RandomPolicy.INSTANCE));
+        MctsPolicy mcts = null;
+        if (parameters.containsKey("mcts")) {
+            mcts = new MctsPolicy(Duration.ofMillis(Long.parseLong(parameters.get("mcts"))));
+            policies.set(0, mcts);
+        }
+
+        long start = System.nanoTime();
+        List<GameResult> results = playAll(seed, games, policies);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.print(report(results, seconds));
+        if (mcts != null)
+            System.out.printf("MCTS playouts: %.0f/s%n", mcts.playoutsPerSecond());
+        if (parameters.containsKey("log"))
+            Files.write(Path.of(parameters.get("log")),
+                    results.stream().map(r -> r.log().format()).toList());
+    }
+
+    /**
+     * Plays a whole game from its initial state, where the tiles are shuffled
+     * with the given seed and the i-th player plays with the i-th policy.
+     *
+     * @param seed the seed of the game
+     * @param policies the policies of the players, in the order they play
+     * @return the result of the game
+     * @throws IllegalArgumentException if there are less than 2 or more than 5 players
+     */
+    public static GameResult play(long seed, List<MovePolicy> policies) {
+        Preconditions.checkArgument(policies.size() >= 2
+                && policies.size() <= PlayerColor.ALL.size());
+        List<PlayerColor> players = PlayerColor.ALL.subList(0, policies.size());
+        Map<PlayerColor, MovePolicy> policyOf = new EnumMap<>(PlayerColor.class);
+        for (int i = 0; i < players.size(); i++)
+            policyOf.put(players.get(i), policies.get(i));
+
+        RandomGenerator random = RandomGeneratorFactory.getDefault().create(seed);
+        GameState state = initialState(players, random).withStartingTilePlaced();
+
+        int turns = 0;
+        List<String> actions = new ArrayList<>();
+        while (state.nextAction() != GameState.Action.END_GAME) {
+            if (state.nextAction() == GameState.Action.PLACE_TILE)
+                turns++;
+            StateAction stateAction = policyOf.get(state.currentPlayer()).play(state, random);
+            Preconditions.checkArgument(stateAction != null);
+            state = stateAction.state();
+            actions.add(stateAction.action());
+        }
+
+        Map<PlayerColor, Integer> points = new EnumMap<>(PlayerColor.class);
+        for (PlayerColor player : players)
+            points.put(player, state.messageBoard().points(player));
+        return new GameResult(seed, points, turns, actions);
+    }
+
+    /**
+     * Plays the games with the given number of consecutive seeds in parallel.
+     *
+     * @param firstSeed the seed of the first game
+     * @param games the number of games to play
+     * @param policies the policies of the players, in the order they play
+     * @return the results of the games, in the order of their seeds
+     * @throws IllegalArgumentException if the number of games is negative, or if
+     *                                  there are less than 2 or more than 5 players
+     */
+    public static List<GameResult> playAll(long firstSeed, int games, List<MovePolicy> policies) {
+        Preconditions.checkArgument(games >= 0);
+        List<MovePolicy> policiesCopy = List.copyOf(policies);
+        return LongStream.range(0, games)
+                .parallel()
+                .mapToObj(i -> play(firstSeed + i, policiesCopy))
+                .toList();
+    }
+
+    /**
+     * Returns the report of the given results, with the number of games played per
+     * second, the distribution of the points and wins of each player and the
+     * distribution of the number of turns.
+     *
+     * @param results the results of the games
+     * @param seconds the time spent playing the games, in seconds
+     * @return the textual report of the results
+     */
+    public static String report(List<GameResult> results, double seconds) {
+        StringBuilder report = new StringBuilder();
+        int actions = results.stream().mapToInt(r -> r.actions().size()).sum();
+        report.append(String.format("%d games in %.2f s: %.1f games/s, %.0f actions/s%n",
+                results.size(), seconds, results.size() / seconds, actions / seconds));
+        if (results.isEmpty()) return report.toString();
+
+        report.append(String.format("%-8s %8s %8s %8s %8s %8s %8s%n",
+                "player", "wins", "mean", "min", "median", "p90", "max"));
+        for (PlayerColor player : results.getFirst().points().keySet()) {
+            int[] points = results.stream().mapToInt(r -> r.points().get(player)).sorted().toArray();
+            long wins = results.stream().filter(r -> r.winners().contains(player)).count();
+            report.append(String.format("%-8s %8d %8.1f %8d %8d %8d %8d%n",
+                    player, wins, Arrays.stream(points).average().orElse(0),
+                    points[0], percentile(points, 50), percentile(points, 90),
+                    points[points.length - 1]));
+        }
+
+        int[] turns = results.stream().mapToInt(GameResult::turns).sorted().toArray();
+        report.append(String.format("turns: mean %.1f, min %d, median %d, max %d%n",
+                Arrays.stream(turns).average().orElse(0),
+                turns[0], percentile(turns, 50), turns[turns.length - 1]));
+        return report.toString();
+    }
+
+    /**
+     * Creates the initial state of a game, where the tiles are shuffled with
+     * the given generator like the main class of the user interface does,
+     * and the names of the players are the names of their colors.
+     *
+     * @param players the players of the game
+     * @param random the random generator of the game
+     * @return the initial state of the game
+     */
+    static GameState initialState(List<PlayerColor> players, RandomGenerator random) {
+        List<Tile> tiles = new ArrayList<>(Tiles.TILES);
+        Collections.shuffle(tiles, random);
+        Map<Tile.Kind, List<Tile>> groupedTiles = tiles
+                .stream()
+                .collect(Collectors.groupingBy(Tile::kind));
+
+        TileDecks tileDecks = new TileDecks(
+                groupedTiles.get(Tile.Kind.START),
+                groupedTiles.get(Tile.Kind.NORMAL),
+                groupedTiles.get(Tile.Kind.MENHIR));
+
+        Map<PlayerColor, String> names = new EnumMap<>(PlayerColor.class);
+        for (PlayerColor player : players)
+            names.put(player, player.name());
+        return GameState.initial(players, tileDecks, new TextMakerFr(names));
+    }
+
+    /**
+     * Private function that returns a percentile of sorted values.
+     *
+     * @param sorted the values in ascending order (not empty)
+     * @param percent the percentile to return, between 0 and 100
+     * @return the value below which the given percent of the values are
+     */
+    private static int percentile(int[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    /**
+     * Represents the result of a game played by the simulator.
+     *
+     * @param seed the seed of the game
+     * @param points the final points of each player, in the order they played
+     * @param turns the number of tiles placed by the players
+     * @param actions the encoded actions played
+     */
+    public record GameResult(long seed, Map<PlayerColor, Integer> points, int turns, List<String> actions) {
+
+        /**
+         * Compact constructor that ensures immutability by copying the points
+         * while keeping them in the order of the players, and the actions.
+         */
+        public GameResult {
+            points = Collections.unmodifiableMap(new EnumMap<>(points));
+            actions = List.copyOf(actions);
+        }
+
+        /**
+         * Returns the log of the game, from which it can be replayed.
+         *
+         * @return the log of the game
+         */
+        public Replay.GameLog log() {
+            return new Replay.GameLog(seed, List.copyOf(points.keySet()), actions);
+        }
+
+        /**
+         * Returns the players that have the most points.
+         *
+         * @return the winners of the game
+         */
+        public Set<PlayerColor> winners() {
+            int maxPoints = Collections.max(points.values());
+            return points.keySet().stream()
+                    .filter(player -> points.get(player) == maxPoints)
+                    .collect(Collectors.toSet());
+        }
+    }
+}
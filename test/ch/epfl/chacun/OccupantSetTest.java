@@ -0,0 +1,91 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupantSetTest {
+    @Test
+    void occupantSetEmptyContainsNothing() {
+        assertTrue(OccupantSet.EMPTY.isEmpty());
+        assertFalse(OccupantSet.EMPTY.contains(new Occupant(Occupant.Kind.PAWN, 0)));
+        assertFalse(OccupantSet.EMPTY.contains("not an occupant"));
+        assertFalse(OccupantSet.EMPTY.iterator().hasNext());
+        assertThrows(NoSuchElementException.class, () -> OccupantSet.EMPTY.iterator().next());
+    }
+
+    @Test
+    void occupantSetWithAndWithoutDoNotModifyPreviousVersion() {
+        Occupant pawn = new Occupant(Occupant.Kind.PAWN, 561);
+        Occupant hut = new Occupant(Occupant.Kind.HUT, 561);
+        OccupantSet set = OccupantSet.EMPTY.with(pawn);
+        OccupantSet newSet = set.with(hut).without(pawn);
+
+        assertEquals(Set.of(pawn), set);
+        assertEquals(Set.of(hut), newSet);
+        assertSame(set, set.with(pawn));
+        assertSame(newSet, newSet.without(pawn));
+        assertThrows(UnsupportedOperationException.class, () -> set.add(hut));
+    }
+
+    @Test
+    void occupantSetIsOrderedByZoneIdThenKind() {
+        List<Occupant> occupants = new ArrayList<>();
+        for (int zoneId : new int[] {5000, 3, 949, 0, 64, 63, 128})
+            for (Occupant.Kind kind : Occupant.Kind.values())
+                occupants.add(new Occupant(kind, zoneId));
+
+        OccupantSet.Builder builder = new OccupantSet.Builder();
+        OccupantSet set = OccupantSet.EMPTY;
+        for (Occupant occupant : occupants) {
+            builder.add(occupant);
+            set = set.with(occupant);
+        }
+        occupants.sort(Comparator.comparingInt(Occupant::zoneId).thenComparing(Occupant::kind));
+
+        assertEquals(occupants, List.copyOf(set));
+        assertEquals(occupants, List.copyOf(builder.add(occupants.getFirst()).build()));
+        assertEquals(occupants.size(), set.size());
+        assertEquals(new HashSet<>(occupants), set);
+        assertEquals(new HashSet<>(occupants).hashCode(), set.hashCode());
+    }
+
+    @Test
+    void occupantSetPawnsAreIndexedInOrder() {
+        OccupantSet.Builder builder = new OccupantSet.Builder();
+        for (int zoneId : new int[] {5000, 3, 949, 0, 31, 32, 64, 63, 128}) {
+            builder.add(new Occupant(Occupant.Kind.HUT, zoneId));
+            if (zoneId % 2 == 0 || zoneId > 100)
+                builder.add(new Occupant(Occupant.Kind.PAWN, zoneId));
+        }
+        OccupantSet set = builder.build();
+        List<Occupant> pawns = set.stream()
+                .filter(occupant -> occupant.kind() == Occupant.Kind.PAWN)
+                .toList();
+
+        assertEquals(pawns, set.pawns());
+        assertEquals(pawns.size(), set.pawns().size());
+        for (int i = 0; i < pawns.size(); i++) {
+            assertEquals(pawns.get(i), set.pawns().get(i));
+            assertEquals(i, set.pawns().indexOf(pawns.get(i)));
+        }
+        assertEquals(-1, set.pawns().indexOf(new Occupant(Occupant.Kind.HUT, 3)));
+        assertEquals(-1, set.pawns().indexOf(new Occupant(Occupant.Kind.PAWN, 3)));
+        assertEquals(-1, set.pawns().indexOf(new Occupant(Occupant.Kind.PAWN, 100_000)));
+        assertThrows(IndexOutOfBoundsException.class, () -> OccupantSet.EMPTY.pawns().get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> set.pawns().get(pawns.size()));
+    }
+
+    @Test
+    void occupantPackedCodeIsUnpackedToTheSameOccupant() {
+        for (int zoneId : new int[] {0, 1, 560, 949, 999, 1000, 123_456})
+            for (Occupant.Kind kind : Occupant.Kind.values()) {
+                Occupant occupant = new Occupant(kind, zoneId);
+                assertEquals(occupant, Occupant.unpacked(occupant.packed()));
+            }
+        assertSame(Occupant.unpacked(42), Occupant.unpacked(42));
+        assertThrows(IllegalArgumentException.class, () -> Occupant.unpacked(-1));
+    }
+}
@@ -0,0 +1,56 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentArrayTest {
+    @Test
+    void persistentArrayEmptyContainsOnlyNull() {
+        PersistentArray<String> array = PersistentArray.empty();
+        assertEquals(0, array.capacity());
+        assertNull(array.get(0));
+        assertNull(array.get(1000));
+        assertNull(array.get(-1));
+    }
+
+    @Test
+    void persistentArrayWithDoesNotModifyPreviousVersion() {
+        PersistentArray<String> array = PersistentArray.<String>empty().with(3, "a");
+        PersistentArray<String> newArray = array.with(3, "b").with(700, "c");
+        assertEquals("a", array.get(3));
+        assertNull(array.get(700));
+        assertEquals("b", newArray.get(3));
+        assertEquals("c", newArray.get(700));
+        assertTrue(newArray.capacity() > 700);
+    }
+
+    @Test
+    void persistentArrayWithThrowsOnNegativeIndex() {
+        assertThrows(IllegalArgumentException.class, () -> PersistentArray.empty().with(-1, "a"));
+    }
+
+    @Test
+    void persistentArrayBuilderDoesNotModifyBuiltArrays() {
+        var builder = new PersistentArray.Builder<>(PersistentArray.<Integer>empty());
+        for (int i = 0; i < 100; i++)
+            builder.set(i, i);
+        PersistentArray<Integer> array = builder.build();
+        for (int i = 0; i < 100; i++)
+            builder.set(i, -i);
+        PersistentArray<Integer> newArray = builder.build();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, array.get(i));
+            assertEquals(-i, newArray.get(i));
+        }
+    }
+
+    @Test
+    void persistentArrayEqualsIgnoresCapacity() {
+        PersistentArray<String> array1 = PersistentArray.<String>empty().with(1, "a");
+        PersistentArray<String> array2 = array1.with(500, "b").with(500, null);
+        assertEquals(array1, array2);
+        assertEquals(array1.hashCode(), array2.hashCode());
+        assertNotEquals(array1, array1.with(2, "a"));
+    }
+}
@@ -2,7 +2,11 @@ package ch.epfl.chacun;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class PosTest {
     @Test
@@ -39,4 +43,21 @@ class PosTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void posPackedCodesFollowTheSortedPositionsOfTheBoard() {
+        List<Pos> positions = new ArrayList<>();
+        for (int x = -Board.REACH; x <= Board.REACH; x++)
+            for (int y = -Board.REACH; y <= Board.REACH; y++)
+                positions.add(new Pos(x, y));
+
+        for (int i = 0; i < positions.size(); i++) {
+            assertEquals(i, positions.get(i).packed());
+            assertEquals(positions.get(i), Pos.unpacked(i));
+        }
+        assertEquals(-1, new Pos(Board.REACH + 1, 0).packed());
+        assertEquals(-1, new Pos(0, -Board.REACH - 1).packed());
+        assertSame(Pos.ORIGIN, Pos.ORIGIN.neighbor(Direction.N).neighbor(Direction.S));
+    }
+}
+
@@ -0,0 +1,25 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileZonesTest {
+    @Test
+    void tileZonesArePrecomputedForEqualTiles() {
+        for (Tile tile : Tiles.TILES) {
+            Tile copy = new Tile(tile.id(), tile.kind(), tile.n(), tile.e(), tile.s(), tile.w());
+            assertNotSame(tile, copy);
+            assertSame(TileZones.of(tile), TileZones.of(copy));
+        }
+    }
+
+    @Test
+    void tileZonesAreComputedForOtherTiles() {
+        Tile tile = Tiles.TILES.get(1);
+        Tile other = new Tile(tile.id(), tile.kind(), tile.e(), tile.s(), tile.w(), tile.n());
+        assertNotEquals(tile, other);
+        assertNotSame(TileZones.of(tile), TileZones.of(other));
+        assertEquals(TileZones.of(tile).potentialOccupants(), TileZones.of(other).potentialOccupants());
+    }
+}
@@ -0,0 +1,84 @@
+package ch.epfl.chacun.bench;
+
+import ch.epfl.chacun.*;
+
+import java.util.List;
+
+/**
+ * Benchmark that measures the cost of placing a tile on the board
+ * depending on the number of tiles that are already placed.
+ * It plays a seeded game without occupants, then places the same
+ * tiles again and again on an empty board while timing every placement.
+ * The cost of a placement should stay flat as the board fills.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class BoardFillBenchmark {
+
+    /**
+     * Number of placements grouped together in a line of the report
+     */
+    private static final int BUCKET_SIZE = 10;
+
+    /**
+     * Number of times the board is filled before measuring
+     */
+    private static final int WARMUP_ITERATIONS = 2_000;
+
+    /**
+     * Number of times the board is filled while measuring
+     */
+    private static final int MEASURED_ITERATIONS = 5_000;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BoardFillBenchmark() {}
+
+    /**
+     * Runs the benchmark and prints the average cost of a placement
+     * for each group of placements.
+     *
+     * @param args the seed of the game (optional)
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 2024;
+        List<PlacedTile> placements = SeededGames.placements(seed);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            fill(placements, null);
+
+        long[] nanos = new long[placements.size()];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++)
+            fill(placements, nanos);
+
+        System.out.printf("%d placements, seed %d%n", placements.size(), seed);
+        System.out.println("placements    ns/placement");
+        for (int from = 0; from < nanos.length; from += BUCKET_SIZE) {
+            int to = Math.min(from + BUCKET_SIZE, nanos.length);
+            long total = 0;
+            for (int i = from; i < to; i++)
+                total += nanos[i];
+            System.out.printf("%3d - %3d %14.0f%n", from + 1, to,
+                    (double) total / ((to - from) * (long) MEASURED_ITERATIONS));
+        }
+    }
+
+    /**
+     * Fills an empty board with the given placements.
+     *
+     * @param placements the tiles to place in order
+     * @param nanos the time spent on each placement is added to it (can be null)
+     * @return the filled board
+     */
+    private static Board fill(List<PlacedTile> placements, long[] nanos) {
+        Board board = Board.EMPTY;
+        for (int i = 0; i < placements.size(); i++) {
+            long start = System.nanoTime();
+            board = board.withNewTile(placements.get(i));
+            if (nanos != null) nanos[i] += System.nanoTime() - start;
+        }
+        return board;
+    }
+}
@@ -0,0 +1,168 @@
+package ch.epfl.chacun.bench;
+
+import ch.epfl.chacun.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark suite of the hot paths of the game engine, run on a whole
+ * seeded game. It reports the throughput and the bytes allocated per
+ * operation of each benchmark, so that they can be compared before and
+ * after a change of the engine.
+ * The benchmarks to run can be selected by giving a part of their name.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class EngineBenchmark {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EngineBenchmark() {}
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args the seed of the game (optional), followed by
+     *             parts of the names of the benchmarks to run (optional)
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 2024;
+        List<String> filters = args.length > 1
+                ? List.of(args).subList(1, args.length)
+                : List.of();
+
+        SeededGames.Game game = SeededGames.game(seed);
+        List<GameState> states = game.states();
+        List<PlacedTile> placements = new ArrayList<>();
+        List<Board> boards = new ArrayList<>();
+        List<GameState> placingStates = new ArrayList<>();
+        List<GameState> occupyingStates = new ArrayList<>();
+
+        boards.add(states.getFirst().board());
+        placements.add(states.getFirst().board().lastPlacedTile());
+        for (int i = 0; i < game.actions().size(); i++) {
+            GameState state = states.get(i);
+            switch (state.nextAction()) {
+                case PLACE_TILE -> {
+                    Board board = states.get(i + 1).board();
+                    placingStates.add(state);
+                    placements.add(board.lastPlacedTile().withNoOccupant());
+                    boards.add(board);
+                }
+                case OCCUPY_TILE -> occupyingStates.add(state);
+                default -> {}
+            }
+        }
+        TileDecks decks = states.getFirst().tileDecks();
+        GameState beforeEnd = states.get(states.size() - 2);
+        String lastAction = game.actions().getLast();
+        MessageBoard finalMessageBoard = states.getLast().messageBoard();
+
+        System.out.printf("seed %d: %d placements, %d actions%n",
+                seed, placements.size(), game.actions().size());
+        Harness.printHeader();
+
+        run(filters, "Board.withNewTile", placements.size(), () -> {
+            Board board = Board.EMPTY;
+            for (PlacedTile placement : placements)
+                board = board.withNewTile(placement);
+            return board;
+        });
+        run(filters, "Board.insertionPositions", boards.size(), () -> {
+            int count = 0;
+            for (Board board : boards)
+                for (Pos pos : board.insertionPositions())
+                    count += pos.x();
+            return count;
+        });
+        run(filters, "Board.couldPlaceTile", boards.size() * Tiles.TILES.size(), () -> {
+            int count = 0;
+            for (Board board : boards)
+                for (Tile tile : Tiles.TILES)
+                    if (board.couldPlaceTile(tile)) count++;
+            return count;
+        });
+        run(filters, "ZonePartitions.Builder.addTile/connectSides", placements.size(), () -> {
+            ZonePartitions partitions = ZonePartitions.EMPTY;
+            Board board = Board.EMPTY;
+            for (int i = 0; i < placements.size(); i++) {
+                PlacedTile tile = placements.get(i);
+                ZonePartitions.Builder builder = new ZonePartitions.Builder(partitions);
+                builder.addTile(tile.tile());
+                for (Direction direction : Direction.ALL) {
+                    PlacedTile neighbor = board.tileAt(tile.pos().neighbor(direction));
+                    if (neighbor != null)
+                        builder.connectSides(tile.side(direction), neighbor.side(direction.opposite()));
+                }
+                partitions = builder.build();
+                board = boards.get(i);
+            }
+            return partitions;
+        });
+        run(filters, "TileDecks.withTopTileDrawn", decks.deckSize(Tile.Kind.NORMAL), () -> {
+            TileDecks remaining = decks;
+            while (remaining.deckSize(Tile.Kind.NORMAL) != 0)
+                remaining = remaining.withTopTileDrawn(Tile.Kind.NORMAL);
+            return remaining;
+        });
+        run(filters, "GameState.withPlacedTile", placingStates.size(), () -> {
+            GameState last = null;
+            for (int i = 0; i < placingStates.size(); i++)
+                last = placingStates.get(i).withPlacedTile(placements.get(i + 1));
+            return last;
+        });
+        run(filters, "GameState.withTurnFinished", occupyingStates.size(), () -> {
+            GameState last = null;
+            for (GameState state : occupyingStates)
+                last = state.withNewOccupant(null);
+            return last;
+        });
+        run(filters, "GameState.withFinalPointsCounted", 1,
+                () -> ActionEncoder.decodeAndApply(beforeEnd, lastAction));
+        run(filters, "MessageBoard.points", 1, finalMessageBoard::points);
+        run(filters, "ActionEncoder.decodeAndApply", game.actions().size(), () -> {
+            GameState state = states.getFirst();
+            for (String action : game.actions())
+                state = ActionEncoder.decodeAndApply(state, action).state();
+            return state;
+        });
+        String allActions = String.join("", game.actions());
+        run(filters, "Base32.decode", allActions.length() / 2, () -> {
+            int bits = 0;
+            for (int i = 0; i + 1 < allActions.length(); i += 2)
+                bits ^= Base32.decode(allActions, i, 2);
+            return bits;
+        });
+        run(filters, "Base32.encodeBits10", 1 << 10, () -> {
+            int characters = 0;
+            for (int bits = 0; bits < 1 << 10; bits++)
+                characters ^= Base32.encodeBits10(bits).charAt(1);
+            return characters;
+        });
+        run(filters, "ActionEncoder.decodeAndApplyAll", game.actions().size(),
+                () -> ActionEncoder.decodeAndApplyAll(states.getFirst(), allActions));
+        GameState finalState = states.getLast();
+        byte[] snapshot = GameStateCodec.encode(finalState);
+        run(filters, "GameStateCodec.encode", 1, () -> GameStateCodec.encode(finalState));
+        run(filters, "GameStateCodec.decode", 1,
+                () -> GameStateCodec.decode(snapshot, finalState.messageBoard().textMaker()));
+    }
+
+    /**
+     * Private function that runs a benchmark if its name
+     * contains one of the filters, or if there is no filter.
+     *
+     * @param filters the parts of the names of the benchmarks to run
+     * @param name the name of the benchmark
+     * @param operationsPerCall the number of operations run by a call to the body
+     * @param body the operations to measure
+     */
+    private static void run(List<String> filters, String name, int operationsPerCall, Supplier<?> body) {
+        if (filters.isEmpty() || filters.stream().anyMatch(name::contains))
+            Harness.run(name, operationsPerCall, body);
+    }
+}
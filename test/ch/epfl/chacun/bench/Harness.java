@@ -0,0 +1,117 @@
+package ch.epfl.chacun.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Minimal benchmark harness that measures the throughput of an operation
+ * and the number of bytes it allocates, by running it repeatedly during
+ * a fixed amount of time after a warmup.
+ * The allocated bytes are read from the thread MXBean of the JVM,
+ * they are only reported if the JVM supports it.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+final class Harness {
+
+    /**
+     * Time spent running an operation before measuring it
+     */
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+
+    /**
+     * Time spent measuring an operation
+     */
+    private static final long MEASUREMENT_NANOS = 2_000_000_000L;
+
+    /**
+     * The thread MXBean used to count the allocated bytes (null if not supported)
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    /**
+     * Results of the operations, kept so that they cannot be optimized away
+     */
+    private static volatile Object sink;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Harness() {}
+
+    /**
+     * Prints the header of the table of results.
+     */
+    static void printHeader() {
+        System.out.printf("%-44s %14s %12s %12s%n", "benchmark", "ops/s", "ns/op", "B/op");
+    }
+
+    /**
+     * Measures an operation and prints its throughput and allocation rate.
+     * A call to the given body can run several operations at once,
+     * for example the same operation on every board of a game.
+     *
+     * @param name the name of the benchmark
+     * @param operationsPerCall the number of operations run by a call to the body
+     * @param body the operations to measure
+     */
+    static void run(String name, int operationsPerCall, Supplier<?> body) {
+        loop(body, WARMUP_NANOS);
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long calls = loop(body, MEASUREMENT_NANOS);
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+
+        double operations = (double) calls * operationsPerCall;
+        System.out.printf("%-44s %14.0f %12.1f %12s%n",
+                name,
+                operations * 1e9 / nanos,
+                nanos / operations,
+                THREADS == null ? "n/a" : String.format("%.1f", bytes / operations));
+    }
+
+    /**
+     * Private function that calls the body until the given time has passed.
+     *
+     * @param body the operations to run
+     * @param nanos the time during which the body is called
+     * @return the number of calls to the body
+     */
+    private static long loop(Supplier<?> body, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long calls = 0;
+        do {
+            sink = body.get();
+            calls++;
+        } while (System.nanoTime() < end);
+        return calls;
+    }
+
+    /**
+     * Private function that returns the number of bytes allocated
+     * by the current thread so far.
+     *
+     * @return the allocated bytes, or 0 if the JVM does not count them
+     */
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Private function that returns the thread MXBean of the JVM
+     * if it can count the bytes allocated by a thread.
+     *
+     * @return the thread MXBean, or null if it cannot count allocated bytes
+     */
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+}
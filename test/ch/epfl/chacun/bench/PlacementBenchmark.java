@@ -0,0 +1,145 @@
+package ch.epfl.chacun.bench;
+
+import ch.epfl.chacun.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Benchmark that compares Board.couldPlaceTile, which compares the signatures
+ * of the tiles to the constraints of the insertion positions, to the previous
+ * way of checking it, which created a placed tile for every insertion position
+ * and rotation and checked it against the neighbors of its position.
+ * Both are run for every tile on every board of a seeded game.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+public final class PlacementBenchmark {
+
+    /**
+     * Number of times all checks are made before measuring
+     */
+    private static final int WARMUP_ITERATIONS = 20;
+
+    /**
+     * Number of times all checks are made while measuring
+     */
+    private static final int MEASURED_ITERATIONS = 50;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private PlacementBenchmark() {}
+
+    /**
+     * Runs the benchmark and prints the average cost of a check for both ways.
+     *
+     * @param args the seed of the game (optional)
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 2024;
+        List<Board> boards = SeededGames.boards(SeededGames.placements(seed));
+
+        // Both ways must agree before their costs are compared
+        for (Board board : boards)
+            for (Tile tile : Tiles.TILES)
+                if (board.couldPlaceTile(tile) != previousCouldPlaceTile(board, tile))
+                    throw new AssertionError(STR."Disagreement for tile \{tile.id()}");
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            checkAll(boards, false);
+            checkAll(boards, true);
+        }
+        long checks = (long) boards.size() * Tiles.TILES.size() * MEASURED_ITERATIONS;
+        System.out.printf("%d boards x %d tiles, seed %d%n", boards.size(), Tiles.TILES.size(), seed);
+        for (boolean previous : new boolean[]{false, true}) {
+            long start = System.nanoTime();
+            int placeable = 0;
+            for (int i = 0; i < MEASURED_ITERATIONS; i++)
+                placeable += checkAll(boards, previous);
+            double nanosPerCheck = (double) (System.nanoTime() - start) / checks;
+            System.out.printf("%-28s %10.1f ns/check  (%d placeable)%n",
+                    previous ? "previous couldPlaceTile" : "Board.couldPlaceTile",
+                    nanosPerCheck, placeable / MEASURED_ITERATIONS);
+        }
+    }
+
+    /**
+     * Checks whether every tile could be placed on every board.
+     *
+     * @param boards the boards to check
+     * @param previous whether to use the previous way of checking
+     * @return the number of tiles that could be placed
+     */
+    private static int checkAll(List<Board> boards, boolean previous) {
+        int placeable = 0;
+        for (Board board : boards)
+            for (Tile tile : Tiles.TILES)
+                if (previous ? previousCouldPlaceTile(board, tile) : board.couldPlaceTile(tile))
+                    placeable++;
+        return placeable;
+    }
+
+    /**
+     * The previous implementation of Board.couldPlaceTile, which recomputed
+     * the insertion positions for every candidate placed tile.
+     *
+     * @param board the board
+     * @param tile the tile to be placed
+     * @return true if the tile can be placed, false otherwise
+     */
+    private static boolean previousCouldPlaceTile(Board board, Tile tile) {
+        for (Pos pos : previousInsertionPositions(board)) {
+            for (Rotation rotation : Rotation.ALL) {
+                PlacedTile possibleTile = new PlacedTile(tile, null, rotation, pos, null);
+                if (previousCanAddTile(board, possibleTile)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The previous implementation of Board.canAddTile.
+     *
+     * @param board the board
+     * @param tile the tile to be placed
+     * @return true if the tile can be added, false otherwise
+     */
+    private static boolean previousCanAddTile(Board board, PlacedTile tile) {
+        if (!previousInsertionPositions(board).contains(tile.pos())) return false;
+
+        for (Direction direction : Direction.ALL) {
+            PlacedTile neighbor = board.tileAt(tile.pos().neighbor(direction));
+            if (neighbor != null && !tile.side(direction)
+                    .isSameKindAs(neighbor.side(direction.opposite())))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * The previous implementation of Board.insertionPositions,
+     * which went through the neighbors of every placed tile.
+     *
+     * @param board the board
+     * @return the set of all insertion positions on the board
+     */
+    private static Set<Pos> previousInsertionPositions(Board board) {
+        Set<Pos> insertionPositions = new HashSet<>();
+        for (int x = -Board.REACH; x <= Board.REACH; x++)
+            for (int y = -Board.REACH; y <= Board.REACH; y++) {
+                Pos pos = new Pos(x, y);
+                if (board.tileAt(pos) == null) continue;
+                for (Direction direction : Direction.ALL) {
+                    Pos neighbor = pos.neighbor(direction);
+                    if (Math.abs(neighbor.x()) <= Board.REACH
+                            && Math.abs(neighbor.y()) <= Board.REACH
+                            && board.tileAt(neighbor) == null)
+                        insertionPositions.add(neighbor);
+                }
+            }
+        return insertionPositions;
+    }
+}
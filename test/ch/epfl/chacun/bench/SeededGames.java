@@ -0,0 +1,184 @@
+package ch.epfl.chacun.bench;
+
+import ch.epfl.chacun.*;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class that plays seeded games to create the inputs of the benchmarks.
+ *
+ * @author Alexis Grillet-Aubert (381587)
+ * @author Jakub Kliment (380660)
+ */
+final class SeededGames {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SeededGames() {}
+
+    /**
+     * Probability that a player places an occupant when possible
+     */
+    private static final double OCCUPATION_PROBABILITY = 0.5;
+
+    /**
+     * Returns the initial state of the game with the given seed, where
+     * the tiles are shuffled with the seed and two players play.
+     *
+     * @param seed the seed used to shuffle the tiles
+     * @return the initial state of the game
+     */
+    static GameState initialState(long seed) {
+        return initialState(RandomGeneratorFactory.getDefault().create(seed));
+    }
+
+    /**
+     * Plays a whole game with the given seed, where the players place the tiles
+     * at random positions, place an occupant on every second tile they could
+     * place one on, and retake a random pawn when a shaman lets them.
+     *
+     * @param seed the seed used to shuffle the tiles and choose the actions
+     * @return the game that was played
+     */
+    static Game game(long seed) {
+        RandomGenerator random = RandomGeneratorFactory.getDefault().create(seed);
+        GameState state = initialState(random).withStartingTilePlaced();
+
+        List<GameState> states = new ArrayList<>(List.of(state));
+        List<String> actions = new ArrayList<>();
+        while (state.nextAction() != GameState.Action.END_GAME) {
+            ActionEncoder.StateAction stateAction = switch (state.nextAction()) {
+                case PLACE_TILE -> ActionEncoder.withPlacedTile(state, randomPlacement(state, random));
+                case OCCUPY_TILE -> {
+                    List<Occupant> occupants = new ArrayList<>(state.lastTilePotentialOccupants());
+                    occupants.sort(Comparator.comparingInt(Occupant::zoneId)
+                            .thenComparing(Occupant::kind));
+                    yield ActionEncoder.withNewOccupant(state,
+                            random.nextDouble() < OCCUPATION_PROBABILITY
+                                    ? occupants.get(random.nextInt(occupants.size()))
+                                    : null);
+                }
+                case RETAKE_PAWN -> {
+                    Board board = state.board();
+                    PlayerColor player = state.currentPlayer();
+                    List<Occupant> pawns = board.occupants().stream()
+                            .filter(o -> o.kind() == Occupant.Kind.PAWN
+                                    && board.tileWithId(Zone.tileId(o.zoneId())).placer() == player)
+                            .sorted(Comparator.comparingInt(Occupant::zoneId))
+                            .toList();
+                    yield ActionEncoder.withOccupantRemoved(state,
+                            pawns.isEmpty() ? null : pawns.get(random.nextInt(pawns.size())));
+                }
+                default -> throw new IllegalStateException();
+            };
+            state = stateAction.state();
+            states.add(state);
+            actions.add(stateAction.action());
+        }
+        return new Game(List.copyOf(states), List.copyOf(actions));
+    }
+
+    /**
+     * Plays a whole game with the given seed, where the players place the tiles
+     * at random positions and never place or retake any occupant.
+     *
+     * @param seed the seed used to shuffle the tiles and choose the placements
+     * @return the placed tiles in the order they were placed
+     */
+    static List<PlacedTile> placements(long seed) {
+        RandomGenerator random = RandomGeneratorFactory.getDefault().create(seed);
+        GameState state = initialState(random).withStartingTilePlaced();
+
+        List<PlacedTile> placements = new ArrayList<>();
+        placements.add(state.board().lastPlacedTile());
+        while (state.nextAction() != GameState.Action.END_GAME) {
+            state = switch (state.nextAction()) {
+                case PLACE_TILE -> {
+                    PlacedTile tile = randomPlacement(state, random);
+                    placements.add(tile);
+                    yield state.withPlacedTile(tile);
+                }
+                case OCCUPY_TILE -> state.withNewOccupant(null);
+                case RETAKE_PAWN -> state.withOccupantRemoved(null);
+                default -> throw new IllegalStateException();
+            };
+        }
+        return placements;
+    }
+
+    /**
+     * Returns the boards obtained after each placement of the given tiles.
+     *
+     * @param placements the tiles to place in order
+     * @return the board after each placement
+     */
+    static List<Board> boards(List<PlacedTile> placements) {
+        List<Board> boards = new ArrayList<>();
+        Board board = Board.EMPTY;
+        for (PlacedTile placement : placements) {
+            board = board.withNewTile(placement);
+            boards.add(board);
+        }
+        return boards;
+    }
+
+    /**
+     * Private function that creates the initial state of a game
+     * with two players and the tiles shuffled by the given generator.
+     *
+     * @param random the generator used to shuffle the tiles
+     * @return the initial state of the game
+     */
+    private static GameState initialState(RandomGenerator random) {
+        List<Tile> tiles = new ArrayList<>(Tiles.TILES);
+        Collections.shuffle(tiles, random);
+        Map<Tile.Kind, List<Tile>> decks = tiles.stream()
+                .collect(Collectors.groupingBy(Tile::kind));
+
+        List<PlayerColor> players = List.of(PlayerColor.RED, PlayerColor.BLUE);
+        TextMaker textMaker = new TextMakerFr(Map.of(
+                PlayerColor.RED, "Rouge",
+                PlayerColor.BLUE, "Bleu"));
+        return GameState.initial(players, new TileDecks(
+                decks.get(Tile.Kind.START),
+                decks.get(Tile.Kind.NORMAL),
+                decks.get(Tile.Kind.MENHIR)), textMaker);
+    }
+
+    /**
+     * Private function that chooses a random placement of the tile to place,
+     * among all its placements sorted by position and rotation.
+     *
+     * @param state the state where a tile has to be placed
+     * @param random the generator used to choose the placement
+     * @return the chosen placement
+     */
+    private static PlacedTile randomPlacement(GameState state, RandomGenerator random) {
+        List<PlacedTile> candidates = new ArrayList<>();
+        for (Pos pos : state.board().insertionPositions())
+            for (Rotation rotation : Rotation.ALL) {
+                PlacedTile tile = new PlacedTile(
+                        state.tileToPlace(), state.currentPlayer(), rotation, pos);
+                if (state.board().canAddTile(tile))
+                    candidates.add(tile);
+            }
+        candidates.sort(Comparator
+                .comparingInt((PlacedTile t) -> t.pos().x())
+                .thenComparingInt(t -> t.pos().y())
+                .thenComparing(PlacedTile::rotation));
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+    /**
+     * A game played from its initial state.
+     *
+     * @param states the states of the game, from the one with the starting
+     *               tile placed to the final one
+     * @param actions the encoded actions that lead from each state to the next one
+     */
+    record Game(List<GameState> states, List<String> actions) {}
+}
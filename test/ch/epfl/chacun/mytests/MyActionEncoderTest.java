@@ -0,0 +1,94 @@
+package ch.epfl.chacun.mytests;
+
+import ch.epfl.chacun.*;
+import ch.epfl.chacun.ActionEncoder.BatchResult;
+import ch.epfl.chacun.ActionEncoder.InvalidAction;
+import ch.epfl.chacun.sim.RandomPolicy;
+import ch.epfl.chacun.sim.Replay;
+import ch.epfl.chacun.sim.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyActionEncoderTest {
+
+    private final Simulator.GameResult result =
+            Simulator.play(5, Collections.nCopies(3, RandomPolicy.INSTANCE));
+    private final List<String> actions = result.actions();
+    private final GameState initial = Replay.initialState(5, PlayerColor.ALL.subList(0, 3));
+
+    @Test
+    void decodeAndApplyAllPlaysWholeGames() {
+        for (long seed = 0; seed < 5; seed++) {
+            Simulator.GameResult game = Simulator.play(seed, Collections.nCopies(2, RandomPolicy.INSTANCE));
+            GameState start = Replay.initialState(seed, PlayerColor.ALL.subList(0, 2));
+            Replay replay = Replay.of(start, game.actions(), Replay.DEFAULT_CHECKPOINT_INTERVAL);
+
+            BatchResult batch = ActionEncoder.decodeAndApplyAll(start, String.join("", game.actions()));
+            assertTrue(batch.isValid());
+            assertEquals(game.actions().size(), batch.validActions());
+            assertEquals(String.join("", game.actions()).length(), batch.offset());
+            assertEquals(replay.finalState(), batch.state());
+        }
+    }
+
+    @Test
+    void decodeAndApplyAllStopsAtTheFirstInvalidAction() {
+        String all = String.join("", actions);
+        int middle = actions.size() / 2;
+        String before = String.join("", actions.subList(0, middle));
+        GameState stateBefore = Replay.of(initial, actions, Replay.DEFAULT_CHECKPOINT_INTERVAL).stateAfter(middle);
+
+        String invalid = stateBefore.nextAction() == GameState.Action.PLACE_TILE ? "1A" : "1";
+        BatchResult batch = ActionEncoder.decodeAndApplyAll(initial, before + invalid + all);
+        assertFalse(batch.isValid());
+        assertEquals(middle, batch.validActions());
+        assertEquals(before.length(), batch.offset());
+        assertEquals(InvalidAction.BAD_CHARACTER, batch.reason());
+        assertEquals(stateBefore, batch.state());
+
+        batch = ActionEncoder.decodeAndApplyAll(initial, all + "A");
+        assertEquals(actions.size(), batch.validActions());
+        assertEquals(all.length(), batch.offset());
+        assertEquals(InvalidAction.NO_ACTION_EXPECTED, batch.reason());
+
+        batch = ActionEncoder.decodeAndApplyAll(initial, actions.getFirst().substring(0, 1));
+        assertEquals(0, batch.validActions());
+        assertEquals(InvalidAction.BAD_LENGTH, batch.reason());
+
+        batch = ActionEncoder.decodeAndApplyAll(initial, "77");
+        assertEquals(InvalidAction.NO_SUCH_POSITION, batch.reason());
+    }
+
+    @Test
+    void decodeAndApplyAllGivesTheReasonOfInvalidPlacementsAndOccupations() {
+        boolean foundMisfit = false;
+        for (int code = 0; code < 4 * initial.board().insertionPositions().size(); code++) {
+            String action = Base32.encodeBits10(code);
+            if (ActionEncoder.decodeAndApply(initial, action) == null) {
+                assertEquals(InvalidAction.TILE_DOES_NOT_FIT,
+                        ActionEncoder.decodeAndApplyAll(initial, action).reason());
+                foundMisfit = true;
+            }
+        }
+        assertTrue(foundMisfit);
+
+        GameState occupying = ActionEncoder.decodeAndApply(initial, actions.getFirst()).state();
+        assertEquals(GameState.Action.OCCUPY_TILE, occupying.nextAction());
+        assertEquals(InvalidAction.NO_SUCH_OCCUPANT,
+                ActionEncoder.decodeAndApplyAll(occupying, Base32.encodeBits5(0b11110)).reason());
+    }
+
+    @Test
+    void decodeAndApplyReturnsNullForActionsOutOfRange() {
+        assertNull(ActionEncoder.decodeAndApply(initial, "77"));
+        assertNull(ActionEncoder.decodeAndApply(initial, "1A"));
+        assertNull(ActionEncoder.decodeAndApply(initial, "A"));
+        assertNull(ActionEncoder.decodeAndApply(initial, "AAA"));
+        assertNull(ActionEncoder.decodeAndApply(initial, ""));
+        assertNotNull(ActionEncoder.decodeAndApply(initial, actions.getFirst()));
+    }
+}
@@ -0,0 +1,62 @@
+package ch.epfl.chacun.mytests;
+
+import ch.epfl.chacun.Base32;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyBase32Test {
+
+    @Test
+    void encodedStringsAreInterned() {
+        for (int bits = 0; bits < 1 << 10; bits++) {
+            assertSame(Base32.encodeBits10(bits), Base32.encodeBits10(bits));
+            assertSame(Base32.encodeBits10(bits), Base32.encodeBits10(bits).intern());
+            assertSame(Base32.encodeBits5(bits), Base32.encodeBits5(bits).intern());
+            assertEquals(bits, Base32.decode(Base32.encodeBits10(bits)));
+        }
+    }
+
+    @Test
+    void bitsOfWorksForAllCharacters() {
+        for (char c = 0; c < 512; c++) {
+            int index = Base32.ALPHABET.indexOf(c);
+            assertEquals(index, Base32.bitsOf(c));
+            assertEquals(index != -1, Base32.isValid(c));
+        }
+        assertEquals(-1, Base32.bitsOf(Character.MAX_VALUE));
+    }
+
+    @Test
+    void decodeWorksOnPartsOfSequencesAndBuffers() {
+        String log = "AB5JC7";
+        assertEquals(0b1110101001, Base32.decode(log, 2, 2));
+        assertEquals(Base32.decode("C7"), Base32.decode(CharBuffer.wrap(log.toCharArray()), 4, 2));
+        assertEquals(0, Base32.decode(log, 3, 0));
+
+        ByteBuffer buffer = ByteBuffer.allocate(3);
+        Base32.encodeBits10(0b1110101001, buffer);
+        Base32.encodeBits5(33, buffer);
+        assertEquals("5JB", new String(buffer.array(), StandardCharsets.US_ASCII));
+
+        buffer.flip();
+        assertEquals(0b1110101001, Base32.decode(buffer, 2));
+        assertEquals(1, Base32.decode(buffer, 1));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void decodeThrowsOnInvalidCharacters() {
+        assertThrows(IllegalArgumentException.class, () -> Base32.decode("A8"));
+        assertThrows(IllegalArgumentException.class, () -> Base32.decode("a"));
+        assertThrows(IllegalArgumentException.class, () -> Base32.decode("Aé"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Base32.decode(ByteBuffer.wrap(new byte[]{(byte) 0xC1}), 1));
+        assertFalse(Base32.isValid(new StringBuilder("AB1")));
+        assertTrue(Base32.isValid(new StringBuilder("AB2")));
+    }
+}
@@ -7,6 +7,9 @@ import org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 
 import ch.epfl.chacun.*;
+import ch.epfl.chacun.sim.RandomPolicy;
+import ch.epfl.chacun.sim.Replay;
+import ch.epfl.chacun.sim.Simulator;
 import org.junit.jupiter.api.Test;
 
 import java.lang.annotation.Retention;
@@ -1461,4 +1464,201 @@ public class MyBoardTest {
         assertFalse(board.equals(new HashSet<>()));
         assertTrue(board2.equals(board.withNewTile(startTile())));
     }
+
+    @Test
+    void insertionPositionsAreKeptUpToDateWhileFillingTheBoard() {
+        Board board = Board.EMPTY.withNewTile(
+                new PlacedTile(Tiles.TILES.get(56), null, Rotation.NONE, Pos.ORIGIN));
+        Comparator<Pos> sortedOrder = Comparator.comparingInt(Pos::x).thenComparingInt(Pos::y);
+
+        for (Tile tile : Tiles.TILES) {
+            // Insertion positions computed from the neighbors of every placed tile
+            Set<Pos> expected = new HashSet<>();
+            for (int x = -Board.REACH; x <= Board.REACH; x++)
+                for (int y = -Board.REACH; y <= Board.REACH; y++)
+                    if (board.tileAt(new Pos(x, y)) != null)
+                        for (Direction direction : Direction.ALL) {
+                            Pos neighbor = new Pos(x, y).neighbor(direction);
+                            if (Math.abs(neighbor.x()) <= Board.REACH
+                                    && Math.abs(neighbor.y()) <= Board.REACH
+                                    && board.tileAt(neighbor) == null)
+                                expected.add(neighbor);
+                        }
+
+            List<Pos> expectedSorted = expected.stream().sorted(sortedOrder).toList();
+            assertEquals(expected, board.insertionPositions());
+            assertEquals(expectedSorted, board.sortedInsertionPositions());
+            assertEquals(expectedSorted, List.copyOf(board.insertionPositions()));
+            for (int i = 0; i < expectedSorted.size(); i++)
+                assertEquals(i, board.sortedInsertionPositions().indexOf(expectedSorted.get(i)));
+            assertEquals(-1, board.sortedInsertionPositions().indexOf(Pos.ORIGIN));
+
+            if (tile.kind() == Tile.Kind.START) continue;
+            placement:
+            for (Pos pos : board.insertionPositions())
+                for (Rotation rotation : Rotation.ALL) {
+                    PlacedTile placedTile = new PlacedTile(tile, PlayerColor.RED, rotation, pos);
+                    if (board.canAddTile(placedTile)) {
+                        board = board.withNewTile(placedTile);
+                        break placement;
+                    }
+                }
+        }
+    }
+
+    @Test
+    void occupantCountIsKeptUpToDateDuringWholeGames() {
+        for (long seed = 0; seed < 5; seed++) {
+            Simulator.GameResult result =
+                    Simulator.play(seed, Collections.nCopies(4, RandomPolicy.INSTANCE));
+            Replay replay = Replay.of(seed, result.log().players(), result.actions());
+            for (int i = 0; i <= result.actions().size(); i++) {
+                Board board = replay.stateAfter(i).board();
+                for (PlayerColor player : PlayerColor.ALL)
+                    for (Occupant.Kind kind : Occupant.Kind.values()) {
+                        long expected = board.occupants().stream()
+                                .filter(o -> o.kind() == kind
+                                        && board.tileWithId(Zone.tileId(o.zoneId())).placer() == player)
+                                .count();
+                        assertEquals(expected, board.occupantCount(player, kind));
+                    }
+            }
+        }
+    }
+
+    @Test
+    void diffFromGivesTheChangesBetweenVersionsOfTheBoard() {
+        for (long seed = 0; seed < 5; seed++) {
+            Simulator.GameResult result =
+                    Simulator.play(seed, Collections.nCopies(3, RandomPolicy.INSTANCE));
+            Replay replay = Replay.of(seed, result.log().players(), result.actions());
+            for (int i = 0; i <= result.actions().size(); i++) {
+                Board newer = replay.stateAfter(i).board();
+                for (int j : new int[]{0, Math.max(0, i - 1), Math.max(0, i - 5), i}) {
+                    Board older = replay.stateAfter(j).board();
+                    Board.Diff diff = newer.diffFrom(older);
+
+                    List<PlacedTile> placedTiles = new ArrayList<>();
+                    for (int x = -Board.REACH; x <= Board.REACH; x++)
+                        for (int y = -Board.REACH; y <= Board.REACH; y++)
+                            if (newer.tileAt(new Pos(x, y)) != null && older.tileAt(new Pos(x, y)) == null)
+                                placedTiles.add(newer.tileAt(new Pos(x, y)));
+                    assertEquals(Set.copyOf(placedTiles), Set.copyOf(diff.placedTiles()));
+                    if (!diff.placedTiles().isEmpty())
+                        assertEquals(newer.lastPlacedTile(), diff.placedTiles().getLast());
+
+                    assertEquals(difference(newer.occupants(), older.occupants()), diff.addedOccupants());
+                    assertEquals(difference(older.occupants(), newer.occupants()), diff.removedOccupants());
+                    assertEquals(difference(newer.cancelledAnimals(), older.cancelledAnimals()),
+                            diff.newlyCancelledAnimals());
+                    assertEquals(difference(newer.insertionPositions(), older.insertionPositions()),
+                            Set.copyOf(diff.addedInsertionPositions()));
+                    assertEquals(difference(older.insertionPositions(), newer.insertionPositions()),
+                            Set.copyOf(diff.removedInsertionPositions()));
+                    if (j == i) assertTrue(diff.isEmpty());
+                }
+            }
+        }
+    }
+
+    @Test
+    void diffFromThrowsOnBoardsThatAreNotPreviousVersions() {
+        Board board = Board.EMPTY.withNewTile(
+                new PlacedTile(Tiles.TILES.get(56), null, Rotation.NONE, Pos.ORIGIN));
+        Board other = Board.EMPTY.withNewTile(
+                new PlacedTile(Tiles.TILES.get(56), null, Rotation.RIGHT, Pos.ORIGIN));
+        PlacedTile placedTile = null;
+        for (Rotation rotation : Rotation.ALL) {
+            PlacedTile candidate = new PlacedTile(Tiles.TILES.get(17), PlayerColor.RED, rotation, new Pos(-1, 0));
+            if (board.canAddTile(candidate)) placedTile = candidate;
+        }
+        Board next = board.withNewTile(placedTile);
+
+        assertThrows(IllegalArgumentException.class, () -> board.diffFrom(next));
+        assertThrows(IllegalArgumentException.class, () -> other.diffFrom(board));
+        assertTrue(board.diffFrom(board).isEmpty());
+        assertEquals(List.of(board.lastPlacedTile()), board.diffFrom(Board.EMPTY).placedTiles());
+        assertEquals(List.of(next.lastPlacedTile()), next.diffFrom(board).placedTiles());
+        assertEquals(List.of(new Pos(-1, 0)), next.diffFrom(board).removedInsertionPositions());
+    }
+
+    private static <T> Set<T> difference(Set<T> set, Set<T> removed) {
+        Set<T> difference = new HashSet<>(set);
+        difference.removeAll(removed);
+        return difference;
+    }
+
+    @Test
+    void tileWithIdOnlyFindsTheTilesOfTheBoard() {
+        Board board = Board.EMPTY.withNewTile(
+                new PlacedTile(Tiles.TILES.get(56), null, Rotation.NONE, Pos.ORIGIN));
+        List<Board> boards = new ArrayList<>(List.of(board));
+
+        for (Tile tile : Tiles.TILES) {
+            if (tile.kind() == Tile.Kind.START) continue;
+            placement:
+            for (Pos pos : board.insertionPositions())
+                for (Rotation rotation : Rotation.ALL) {
+                    PlacedTile placedTile = new PlacedTile(tile, PlayerColor.RED, rotation, pos);
+                    if (board.canAddTile(placedTile)) {
+                        board = board.withNewTile(placedTile);
+                        boards.add(board);
+                        break placement;
+                    }
+                }
+        }
+
+        // Every board only finds its own tiles, even once newer boards were built from it
+        for (Board b : boards)
+            for (Tile tile : Tiles.TILES) {
+                PlacedTile placedTile = board.tileWithId(tile.id());
+                if (b.tileAt(placedTile.pos()) != null)
+                    assertSame(b.tileAt(placedTile.pos()), b.tileWithId(tile.id()));
+                else
+                    assertThrows(IllegalArgumentException.class, () -> b.tileWithId(tile.id()));
+            }
+        assertThrows(IllegalArgumentException.class, () -> Board.EMPTY.tileWithId(56));
+    }
+
+    @Test
+    void canAddTileAndCouldPlaceTileMatchTheSidesOfTheNeighbors() {
+        Board board = Board.EMPTY.withNewTile(
+                new PlacedTile(Tiles.TILES.get(56), null, Rotation.NONE, Pos.ORIGIN));
+
+        for (int i = 0; i < Tiles.TILES.size(); i++) {
+            if (i % 4 == 0) {
+                for (Tile tile : Tiles.TILES) {
+                    boolean couldPlace = false;
+                    for (Pos pos : board.insertionPositions())
+                        for (Rotation rotation : Rotation.ALL) {
+                            PlacedTile placedTile = new PlacedTile(tile, PlayerColor.RED, rotation, pos);
+                            boolean sidesMatch = true;
+                            for (Direction direction : Direction.ALL) {
+                                PlacedTile neighbor = board.tileAt(pos.neighbor(direction));
+                                if (neighbor != null && !placedTile.side(direction)
+                                        .isSameKindAs(neighbor.side(direction.opposite())))
+                                    sidesMatch = false;
+                            }
+                            assertEquals(sidesMatch, board.canAddTile(placedTile));
+                            couldPlace |= sidesMatch;
+                        }
+                    assertEquals(couldPlace, board.couldPlaceTile(tile));
+                }
+            }
+
+            Tile tile = Tiles.TILES.get(i);
+            if (tile.kind() == Tile.Kind.START) continue;
+            placement:
+            for (Pos pos : board.insertionPositions())
+                for (Rotation rotation : Rotation.ALL) {
+                    PlacedTile placedTile = new PlacedTile(tile, PlayerColor.RED, rotation, pos);
+                    if (board.canAddTile(placedTile)) {
+                        board = board.withNewTile(placedTile);
+                        break placement;
+                    }
+                }
+        }
+        assertFalse(board.canAddTile(new PlacedTile(Tiles.TILES.get(0), null, Rotation.NONE, Pos.ORIGIN)));
+        assertFalse(board.canAddTile(new PlacedTile(Tiles.TILES.get(0), null, Rotation.NONE, new Pos(13, 0))));
+    }
 }
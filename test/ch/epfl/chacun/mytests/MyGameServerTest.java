@@ -0,0 +1,219 @@
+package ch.epfl.chacun.mytests;
+
+import ch.epfl.chacun.net.GameServer;
+import ch.epfl.chacun.sim.RandomPolicy;
+import ch.epfl.chacun.sim.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyGameServerTest {
+
+    private static final class TestClient implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final PrintWriter writer;
+
+        TestClient(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setSoTimeout(10_000);
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), true);
+        }
+
+        void send(String line) {
+            writer.println(line);
+        }
+
+        String receive() throws IOException {
+            return reader.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private static void awaitSessions(GameServer server, int sessions) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (server.stats().sessions() != sessions) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void actionsAreSentToAllClientsOfTheSession() throws IOException {
+        Simulator.GameResult result = Simulator.play(11, Collections.nCopies(2, RandomPolicy.INSTANCE));
+        List<String> actions = result.actions();
+
+        try (GameServer server = GameServer.start(0);
+             TestClient first = new TestClient(server.port());
+             TestClient second = new TestClient(server.port())) {
+            first.send("JOIN game 11 2");
+            assertEquals("JOINED 0", first.receive());
+            second.send("JOIN game 11 2");
+            assertEquals("JOINED 0", second.receive());
+
+            for (int i = 0; i < actions.size(); i++) {
+                (i % 2 == 0 ? first : second).send(actions.get(i));
+                assertEquals("ACTION " + actions.get(i), first.receive());
+                assertEquals("ACTION " + actions.get(i), second.receive());
+            }
+
+            // The game is over, so any action is invalid, and only its sender is told
+            first.send(actions.getFirst());
+            assertEquals("INVALID " + actions.getFirst(), first.receive());
+
+            // A late client gets all actions already played
+            try (TestClient late = new TestClient(server.port())) {
+                late.send("JOIN game 11 2");
+                assertEquals("JOINED " + actions.size(), late.receive());
+                for (String action : actions)
+                    assertEquals("ACTION " + action, late.receive());
+            }
+
+            assertEquals(1, server.stats().sessions());
+            assertEquals(actions.size(), server.stats().actions());
+        }
+    }
+
+    @Test
+    void invalidJoinLinesAreRejected() throws IOException {
+        try (GameServer server = GameServer.start(0)) {
+            for (String line : List.of("HELLO", "JOIN game", "JOIN game x 2", "JOIN game 1 1", "JOIN game 1 6")) {
+                try (TestClient client = new TestClient(server.port())) {
+                    client.send(line);
+                    assertEquals("ERROR", client.receive());
+                    assertNull(client.receive());
+                }
+            }
+
+            try (TestClient client = new TestClient(server.port());
+                 TestClient other = new TestClient(server.port())) {
+                client.send("JOIN game 1 2");
+                assertEquals("JOINED 0", client.receive());
+                other.send("JOIN game 2 2");
+                assertEquals("ERROR", other.receive());
+            }
+
+            // Seeds are unsigned, like the ones printed by the simulator and the replays
+            try (TestClient client = new TestClient(server.port())) {
+                client.send(STR."JOIN big \{Long.toUnsignedString(-1L)} 2");
+                assertEquals("JOINED 0", client.receive());
+            }
+            try (TestClient client = new TestClient(server.port())) {
+                client.send("JOIN negative -1 2");
+                assertEquals("ERROR", client.receive());
+            }
+        }
+    }
+
+    @Test
+    void sessionsEndWhenTheirLastClientLeaves() throws IOException {
+        List<String> actions = Simulator.play(4, Collections.nCopies(2, RandomPolicy.INSTANCE)).actions();
+        try (GameServer server = GameServer.start(0)) {
+            try (TestClient first = new TestClient(server.port());
+                 TestClient second = new TestClient(server.port())) {
+                first.send("JOIN game 4 2");
+                assertEquals("JOINED 0", first.receive());
+                second.send("JOIN game 4 2");
+                assertEquals("JOINED 0", second.receive());
+                first.send(actions.getFirst());
+                assertEquals("ACTION " + actions.getFirst(), first.receive());
+            }
+            awaitSessions(server, 0);
+
+            // The name can be used again for another game
+            try (TestClient client = new TestClient(server.port())) {
+                client.send("JOIN game 5 3");
+                assertEquals("JOINED 0", client.receive());
+                assertEquals(1, server.stats().sessions());
+            }
+            awaitSessions(server, 0);
+        }
+    }
+
+    @Test
+    void slowClientsAreDisconnectedWithoutBlockingTheSession() throws IOException {
+        List<String> actions = Simulator.play(6, Collections.nCopies(2, RandomPolicy.INSTANCE)).actions();
+        try (GameServer server = GameServer.start(0);
+             TestClient slow = new TestClient(server.port());
+             TestClient fast = new TestClient(server.port())) {
+            slow.send("JOIN game 6 2");
+            assertEquals("JOINED 0", slow.receive());
+            fast.send("JOIN game 6 2");
+            assertEquals("JOINED 0", fast.receive());
+
+            // The slow client never reads the answers to its invalid actions, so that
+            // its outbox gets full and it is disconnected before its valid action
+            String invalid = "A".repeat(8192);
+            for (int i = 0; i < 5_000; i++)
+                slow.send(invalid);
+            slow.send(actions.getFirst());
+            try {
+                while (slow.receive() != null) {}
+            } catch (SocketException e) {
+                // The connection was reset by the server
+            }
+
+            fast.send(actions.getFirst());
+            assertEquals("ACTION " + actions.getFirst(), fast.receive());
+            assertEquals(1, server.stats().actions());
+        }
+    }
+
+    @Test
+    void closingTheServerDisconnectsItsClients() throws IOException {
+        GameServer server = GameServer.start(0);
+        try (TestClient client = new TestClient(server.port())) {
+            client.send("JOIN game 1 2");
+            assertEquals("JOINED 0", client.receive());
+            server.close();
+            assertNull(client.receive());
+        }
+    }
+
+    @Test
+    void concurrentSessionsArePlayedIndependently() throws Exception {
+        int sessions = 8;
+        try (GameServer server = GameServer.start(0)) {
+            List<Thread> threads = new ArrayList<>();
+            List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+            long expectedActions = 0;
+            for (int s = 0; s < sessions; s++) {
+                long seed = 100 + s;
+                List<String> actions = Simulator.play(seed, Collections.nCopies(3, RandomPolicy.INSTANCE)).actions();
+                expectedActions += actions.size();
+                threads.add(Thread.ofVirtual().start(() -> {
+                    try (TestClient client = new TestClient(server.port())) {
+                        client.send(STR."JOIN session-\{seed} \{seed} 3");
+                        assertEquals("JOINED 0", client.receive());
+                        for (String action : actions) {
+                            client.send(action);
+                            assertEquals("ACTION " + action, client.receive());
+                        }
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }));
+            }
+            for (Thread thread : threads)
+                thread.join();
+
+            assertEquals(List.of(), failures);
+            assertEquals(expectedActions, server.stats().actions());
+            awaitSessions(server, 0);
+            assertTrue(server.stats().actionsPerSecondPerCore() > 0);
+        }
+    }
+}
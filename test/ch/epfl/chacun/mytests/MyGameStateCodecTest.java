@@ -0,0 +1,95 @@
+package ch.epfl.chacun.mytests;
+
+import ch.epfl.chacun.*;
+import ch.epfl.chacun.sim.RandomPolicy;
+import ch.epfl.chacun.sim.Replay;
+import ch.epfl.chacun.sim.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyGameStateCodecTest {
+
+    @Test
+    void decodeGivesBackTheEncodedStateDuringWholeGames() {
+        for (long seed = 0; seed < 5; seed++) {
+            Simulator.GameResult result =
+                    Simulator.play(seed, Collections.nCopies(2 + (int) seed % 4, RandomPolicy.INSTANCE));
+            Replay replay = Replay.of(seed, result.log().players(), result.actions());
+            for (int i = 0; i <= result.actions().size(); i++) {
+                GameState state = replay.stateAfter(i);
+                GameState decoded = GameStateCodec.decode(
+                        GameStateCodec.encode(state), state.messageBoard().textMaker());
+
+                assertEquals(state, decoded);
+                assertEquals(state.board().insertionPositions(), decoded.board().insertionPositions());
+                assertEquals(state.board().occupants(), decoded.board().occupants());
+                for (PlayerColor player : state.players())
+                    for (Occupant.Kind kind : Occupant.Kind.values())
+                        assertEquals(state.freeOccupantsCount(player, kind), decoded.freeOccupantsCount(player, kind));
+                assertEquals(state.messageBoard().points(), decoded.messageBoard().points());
+            }
+        }
+    }
+
+    @Test
+    void decodedStatesCanBePlayedOn() {
+        Simulator.GameResult result = Simulator.play(7, Collections.nCopies(3, RandomPolicy.INSTANCE));
+        Replay replay = Replay.of(7, result.log().players(), result.actions());
+        int middle = result.actions().size() / 2;
+
+        GameState state = GameStateCodec.decode(GameStateCodec.encode(replay.stateAfter(middle)),
+                replay.stateAfter(middle).messageBoard().textMaker());
+        for (String action : result.actions().subList(middle, result.actions().size()))
+            state = ActionEncoder.decodeAndApply(state, action).state();
+        assertEquals(replay.finalState(), state);
+    }
+
+    @Test
+    void decodeThrowsOnInvalidSnapshots() {
+        Simulator.GameResult result = Simulator.play(3, Collections.nCopies(2, RandomPolicy.INSTANCE));
+        GameState state = Replay.of(3, result.log().players(), result.actions()).finalState();
+        TextMaker textMaker = state.messageBoard().textMaker();
+        byte[] snapshot = GameStateCodec.encode(state);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> GameStateCodec.decode(Arrays.copyOf(snapshot, snapshot.length - 1), textMaker));
+        assertThrows(IllegalArgumentException.class,
+                () -> GameStateCodec.decode(Arrays.copyOf(snapshot, snapshot.length + 1), textMaker));
+        assertThrows(IllegalArgumentException.class,
+                () -> GameStateCodec.decode(new byte[0], textMaker));
+
+        byte[] otherVersion = snapshot.clone();
+        otherVersion[Integer.BYTES] = GameStateCodec.VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> GameStateCodec.decode(otherVersion, textMaker));
+    }
+
+    @Test
+    void decodeThrowsOnlyIllegalArgumentExceptionOnCorruptedSnapshots() {
+        Simulator.GameResult result = Simulator.play(3, Collections.nCopies(2, RandomPolicy.INSTANCE));
+        Replay replay = Replay.of(3, result.log().players(), result.actions());
+        GameState state = replay.stateAfter(result.actions().size() / 2);
+        TextMaker textMaker = state.messageBoard().textMaker();
+        byte[] snapshot = GameStateCodec.encode(state);
+
+        // The size of the start deck, after the magic number, the version and the two players
+        byte[] negativeCount = snapshot.clone();
+        negativeCount[8] = (byte) 0x80;
+        assertThrows(IllegalArgumentException.class, () -> GameStateCodec.decode(negativeCount, textMaker));
+
+        for (int i = 0; i < snapshot.length; i++) {
+            for (byte value : new byte[]{(byte) 0x80, (byte) 0xFF, 0x7F}) {
+                byte[] corrupted = snapshot.clone();
+                corrupted[i] = value;
+                try {
+                    GameStateCodec.decode(corrupted, textMaker);
+                } catch (IllegalArgumentException e) {
+                    // The corrupted snapshot is rejected
+                }
+            }
+        }
+    }
+}
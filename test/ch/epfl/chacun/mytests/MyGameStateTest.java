@@ -2,6 +2,9 @@ package ch.epfl.chacun.mytests;
 
 import ch.epfl.chacun.*;
 import ch.epfl.chacun.Tiles;
+import ch.epfl.chacun.sim.RandomPolicy;
+import ch.epfl.chacun.sim.Replay;
+import ch.epfl.chacun.sim.Simulator;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
@@ -203,6 +206,32 @@ class MyGameStateTest {
         assertNotEquals(gameState.lastTilePotentialOccupants(),  placedTile2.potentialOccupants());
     }
 
+    @Test
+    void lastTilePotentialOccupantsAreKeptByTheBoard() {
+        Simulator.GameResult result = Simulator.play(9, Collections.nCopies(3, RandomPolicy.INSTANCE));
+        Replay replay = Replay.of(9, result.log().players(), result.actions());
+        for (int i = 0; i <= result.actions().size(); i++) {
+            GameState state = replay.stateAfter(i);
+            if (state.nextAction() != GameState.Action.OCCUPY_TILE) continue;
+
+            Set<Occupant> occupants = state.lastTilePotentialOccupants();
+            PlayerColor player = state.currentPlayer();
+            if (state.freeOccupantsCount(player, Occupant.Kind.PAWN) > 0
+                    && state.freeOccupantsCount(player, Occupant.Kind.HUT) > 0)
+                assertSame(occupants, state.lastTilePotentialOccupants());
+
+            // The same board asked for another player, and a fresh board for comparison
+            List<PlayerColor> otherPlayers = new ArrayList<>(state.players());
+            Collections.rotate(otherPlayers, 1);
+            GameState other = new GameState(otherPlayers, state.tileDecks(), null,
+                    state.board(), GameState.Action.OCCUPY_TILE, state.messageBoard());
+            GameState fresh = GameStateCodec.decode(
+                    GameStateCodec.encode(other), state.messageBoard().textMaker());
+            assertEquals(fresh.lastTilePotentialOccupants(), other.lastTilePotentialOccupants());
+            assertEquals(occupants, state.lastTilePotentialOccupants());
+        }
+    }
+
     @Test
     void withStartingTilePlacedThrowsException() {
         GameState gameState = new GameState(players, tileDecks, Tiles.TILES.get(0), Board.EMPTY,
@@ -234,4 +263,26 @@ class MyGameStateTest {
                 Rotation.NONE, new Pos(1, 0), new Occupant(Occupant.Kind.PAWN, 1));
         assertThrows(IllegalArgumentException.class, () -> gameState2.withPlacedTile(placedTile2));
     }
+
+    @Test
+    void diffFromGivesTheBoardChangesAndTheNewMessages() {
+        for (long seed = 0; seed < 5; seed++) {
+            Simulator.GameResult result =
+                    Simulator.play(seed, Collections.nCopies(2, RandomPolicy.INSTANCE));
+            Replay replay = Replay.of(seed, result.log().players(), result.actions());
+            for (int i = 1; i <= result.actions().size(); i++) {
+                GameState previous = replay.stateAfter(i - 1);
+                GameState state = replay.stateAfter(i);
+                GameState.Diff diff = state.diffFrom(previous);
+
+                List<MessageBoard.Message> messages = state.messageBoard().messages();
+                assertEquals(messages.subList(previous.messageBoard().messages().size(), messages.size()),
+                        diff.newMessages());
+                assertEquals(state.board().diffFrom(previous.board()), diff.board());
+            }
+            GameState last = replay.stateAfter(result.actions().size());
+            assertThrows(IllegalArgumentException.class, () -> replay.stateAfter(0).diffFrom(last));
+            assertTrue(last.diffFrom(last).isEmpty());
+        }
+    }
 }
\ No newline at end of file
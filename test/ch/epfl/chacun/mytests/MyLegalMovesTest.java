@@ -0,0 +1,75 @@
+package ch.epfl.chacun.mytests;
+
+import ch.epfl.chacun.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyLegalMovesTest {
+
+    private static GameState initialState(RandomGenerator random) {
+        List<Tile> tiles = new ArrayList<>(Tiles.TILES);
+        Collections.shuffle(tiles, random);
+        Map<Tile.Kind, List<Tile>> decks = tiles.stream().collect(Collectors.groupingBy(Tile::kind));
+        List<PlayerColor> players = List.of(PlayerColor.RED, PlayerColor.BLUE, PlayerColor.GREEN);
+        TextMaker textMaker = new TextMakerFr(Map.of(
+                PlayerColor.RED, "Rouge", PlayerColor.BLUE, "Bleu", PlayerColor.GREEN, "Vert"));
+        return GameState.initial(players, new TileDecks(
+                decks.get(Tile.Kind.START),
+                decks.get(Tile.Kind.NORMAL),
+                decks.get(Tile.Kind.MENHIR)), textMaker);
+    }
+
+    @Test
+    void legalMovesAreEmptyBeforeAndAfterTheGame() {
+        GameState state = initialState(RandomGeneratorFactory.getDefault().create(1));
+        assertTrue(LegalMoves.of(state).isEmpty());
+        assertNull(LegalMoves.placement(state, Pos.ORIGIN, Rotation.NONE));
+    }
+
+    @Test
+    void legalMovesMatchTheActionEncoderDuringAWholeGame() {
+        RandomGenerator random = RandomGeneratorFactory.getDefault().create(2024);
+        GameState state = initialState(random).withStartingTilePlaced();
+
+        while (state.nextAction() != GameState.Action.END_GAME) {
+            List<LegalMoves.Move> moves = LegalMoves.of(state);
+            assertFalse(moves.isEmpty());
+            assertEquals(moves, LegalMoves.of(state));
+
+            for (LegalMoves.Move move : moves) {
+                ActionEncoder.StateAction decoded = ActionEncoder.decodeAndApply(state, move.action());
+                assertNotNull(decoded);
+                assertEquals(decoded, move.applyTo(state));
+                assertEquals(move, LegalMoves.withAction(state, move.action()));
+            }
+
+            if (state.nextAction() == GameState.Action.PLACE_TILE) {
+                Set<PlacedTile> placements = new HashSet<>();
+                for (Pos pos : state.board().insertionPositions())
+                    for (Rotation rotation : Rotation.ALL) {
+                        PlacedTile tile = new PlacedTile(
+                                state.tileToPlace(), state.currentPlayer(), rotation, pos);
+                        LegalMoves.Move placement = LegalMoves.placement(state, pos, rotation);
+                        assertEquals(state.board().canAddTile(tile), placement != null);
+                        if (placement != null) {
+                            assertEquals(tile, placement.tile());
+                            placements.add(tile);
+                        }
+                    }
+                assertEquals(placements, moves.stream()
+                        .map(LegalMoves.Move::tile)
+                        .collect(Collectors.toSet()));
+            } else {
+                assertNull(moves.getLast().occupant());
+            }
+            state = moves.get(random.nextInt(moves.size())).applyTo(state).state();
+        }
+        assertTrue(LegalMoves.of(state).isEmpty());
+    }
+}
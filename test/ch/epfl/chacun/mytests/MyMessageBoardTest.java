@@ -32,6 +32,31 @@ class MyMessageBoardTest {
         assertEquals(messageBoard.points(), map);
     }
 
+    @Test
+    void messagesOfOlderMessageBoardsDoNotChange() {
+        MessageBoard messageBoard = new MessageBoard(new textTest(), new ArrayList<>());
+        Area<Zone.Forest> forest = new Area<>(new HashSet<>(Set.of(new Zone.Forest(10 ,Zone.Forest.Kind.WITH_MUSHROOMS), new Zone.Forest(20, Zone.Forest.Kind.PLAIN))), List.of(PlayerColor.RED, PlayerColor.RED, PlayerColor.GREEN), 0);
+        List<MessageBoard> messageBoards = new ArrayList<>(List.of(messageBoard));
+        for (int i = 0; i < 40; i++) {
+            messageBoard = messageBoard.withScoredForest(forest);
+            messageBoards.add(messageBoard);
+        }
+        MessageBoard branch1 = messageBoards.get(20).withClosedForestWithMenhir(PlayerColor.BLUE, forest);
+        MessageBoard branch2 = messageBoards.get(20).withScoredForest(forest);
+
+        for (int i = 0; i < messageBoards.size(); i++) {
+            assertEquals(i, messageBoards.get(i).messages().size());
+            assertEquals(7 * i, messageBoards.get(i).points(PlayerColor.RED));
+        }
+        assertEquals(messageBoards.get(21), branch2);
+        assertNotEquals(branch1, branch2);
+        assertEquals(0, branch1.messages().getLast().points());
+        assertEquals(140, branch1.points(PlayerColor.RED));
+        assertEquals(Map.of(PlayerColor.RED, 147), branch2.points());
+        assertEquals(0, branch2.points(PlayerColor.BLUE));
+        assertThrows(UnsupportedOperationException.class, () -> branch2.messages().clear());
+    }
+
     @Test
     void forestWithoutOccupant() {
         MessageBoard messageBoard = new MessageBoard(new textTest(), new ArrayList<>());
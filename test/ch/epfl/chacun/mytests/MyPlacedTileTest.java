@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -214,4 +215,30 @@ class MyPlacedTileTest {
         PlacedTile placedTile = new PlacedTile(startTile, PlayerColor.BLUE, Rotation.RIGHT, Pos.ORIGIN, new Occupant(Occupant.Kind.HUT, 560));
         assertEquals(-1, placedTile.idOfZoneOccupiedBy(Occupant.Kind.PAWN));
     }
+
+    @Test
+    void zonesOfAllTilesAreComputedOnceAndMatchTheirZones() {
+        for (Tile tile : Tiles.TILES) {
+            PlacedTile placedTile = new PlacedTile(tile, PlayerColor.RED, Rotation.NONE, Pos.ORIGIN);
+            Set<Zone> zones = tile.zones();
+
+            assertSame(zones, tile.zones());
+            assertSame(tile.sideZones(), tile.sideZones());
+            assertThrows(UnsupportedOperationException.class, () -> zones.remove(zones.iterator().next()));
+
+            assertEquals(zones.stream().filter(z -> z instanceof Zone.Forest).collect(Collectors.toSet()),
+                    placedTile.forestZones());
+            assertEquals(zones.stream().filter(z -> z instanceof Zone.Meadow).collect(Collectors.toSet()),
+                    placedTile.meadowZones());
+            assertEquals(zones.stream().filter(z -> z instanceof Zone.River).collect(Collectors.toSet()),
+                    placedTile.riverZones());
+            assertEquals(zones.stream().filter(z -> z.specialPower() != null).findFirst().orElse(null),
+                    placedTile.specialPowerZone());
+            for (Zone zone : zones)
+                assertSame(zone, placedTile.zoneWithId(zone.id()));
+            assertThrows(IllegalArgumentException.class, () -> placedTile.zoneWithId((tile.id() + 1) * 10));
+            assertSame(placedTile.potentialOccupants(), placedTile.withOccupant(
+                    placedTile.potentialOccupants().iterator().next()).potentialOccupants());
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package ch.epfl.chacun.mytests;
+
+import ch.epfl.chacun.*;
+import ch.epfl.chacun.sim.RandomPolicy;
+import ch.epfl.chacun.sim.Replay;
+import ch.epfl.chacun.sim.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyReplayTest {
+
+    private final Simulator.GameResult result =
+            Simulator.play(42, Collections.nCopies(3, RandomPolicy.INSTANCE));
+    private final Replay.GameLog log = result.log();
+
+    @Test
+    void replayRebuildsTheGameFromItsSeedAndActions() {
+        Replay replay = Replay.of(log.seed(), log.players(), log.actions());
+        assertEquals(GameState.Action.END_GAME, replay.finalState().nextAction());
+        assertEquals(result.turns(), replay.turnCount());
+        for (PlayerColor player : log.players())
+            assertEquals(result.points().get(player), replay.finalState().messageBoard().points(player));
+    }
+
+    @Test
+    void replayGivesTheSameStatesAsReplayingSequentially() {
+        Replay replay = Replay.of(Replay.initialState(log.seed(), log.players()), log.actions(), 5);
+        GameState state = Replay.initialState(log.seed(), log.players());
+        for (int i = 0; i <= log.actions().size(); i++) {
+            GameState replayed = replay.stateAfter(i);
+            assertEquals(state.board(), replayed.board());
+            assertEquals(state.nextAction(), replayed.nextAction());
+            assertEquals(state.messageBoard().messages(), replayed.messageBoard().messages());
+            if (i < log.actions().size())
+                state = ActionEncoder.decodeAndApply(state, log.actions().get(i)).state();
+        }
+        assertEquals(replay.finalState(), replay.stateAfter(log.actions().size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> replay.stateAfter(log.actions().size() + 1));
+    }
+
+    @Test
+    void replayFastForwardsToTheBeginningOfATurn() {
+        Replay replay = Replay.of(log.seed(), log.players(), log.actions());
+        for (int turn = 0; turn < replay.turnCount(); turn++) {
+            GameState state = replay.stateAtTurn(turn);
+            assertEquals(GameState.Action.PLACE_TILE, state.nextAction());
+            assertEquals(turn + 1, countTiles(state));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> replay.stateAtTurn(replay.turnCount()));
+    }
+
+    @Test
+    void replayFindsTheFirstInvalidAction() {
+        assertEquals(-1, Replay.firstInvalidAction(log));
+
+        List<String> actions = new ArrayList<>(log.actions());
+        actions.set(10, "!!!");
+        Replay.GameLog invalidLog = new Replay.GameLog(log.seed(), log.players(), actions);
+        assertEquals(10, Replay.firstInvalidAction(invalidLog));
+        assertArrayEquals(new int[]{-1, 10, -1},
+                Replay.firstInvalidActions(List.of(log, invalidLog, log)));
+        assertThrows(IllegalArgumentException.class,
+                () -> Replay.of(log.seed(), log.players(), actions));
+    }
+
+    @Test
+    void gameLogsCanBeParsedBack() {
+        assertEquals(log, Replay.GameLog.parse(log.format()));
+        assertThrows(IllegalArgumentException.class, () -> Replay.GameLog.parse("12 1 AB"));
+    }
+
+    private static int countTiles(GameState state) {
+        int count = 0;
+        for (int x = -Board.REACH; x <= Board.REACH; x++)
+            for (int y = -Board.REACH; y <= Board.REACH; y++)
+                if (state.board().tileAt(new Pos(x, y)) != null) count++;
+        return count;
+    }
+}
@@ -0,0 +1,56 @@
+package ch.epfl.chacun.mytests;
+
+import ch.epfl.chacun.PlayerColor;
+import ch.epfl.chacun.sim.MctsPolicy;
+import ch.epfl.chacun.sim.MovePolicy;
+import ch.epfl.chacun.sim.RandomPolicy;
+import ch.epfl.chacun.sim.Simulator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MySimulatorTest {
+
+    private final List<MovePolicy> policies = Collections.nCopies(3, RandomPolicy.INSTANCE);
+
+    @Test
+    void simulatorPlaysWholeGames() {
+        Simulator.GameResult result = Simulator.play(7, policies);
+        assertEquals(List.of(PlayerColor.RED, PlayerColor.BLUE, PlayerColor.GREEN),
+                List.copyOf(result.points().keySet()));
+        assertTrue(result.turns() > 0);
+        assertTrue(result.actions().size() >= result.turns());
+        assertFalse(result.winners().isEmpty());
+    }
+
+    @Test
+    void simulatorGamesOnlyDependOnTheirSeed() {
+        List<Simulator.GameResult> results = Simulator.playAll(100, 8, policies);
+        assertEquals(8, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(100 + i, results.get(i).seed());
+            assertEquals(Simulator.play(100 + i, policies), results.get(i));
+        }
+    }
+
+    @Test
+    void mctsPolicyPlaysLegalActionsWithinItsBudget() {
+        MctsPolicy mcts = new MctsPolicy(Duration.ofMillis(5), 2);
+        Simulator.GameResult result = Simulator.play(3, List.of(mcts, RandomPolicy.INSTANCE));
+        assertTrue(result.turns() > 0);
+        assertTrue(mcts.playoutsPerSecond() > 0);
+        assertThrows(IllegalArgumentException.class, () -> new MctsPolicy(Duration.ZERO));
+    }
+
+    @Test
+    void simulatorThrowsOnWrongNumberOfPlayers() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Simulator.play(0, List.of(RandomPolicy.INSTANCE)));
+        assertThrows(IllegalArgumentException.class,
+                () -> Simulator.playAll(0, -1, policies));
+    }
+}
@@ -3,6 +3,8 @@ package ch.epfl.chacun.mytests;
 import ch.epfl.chacun.*;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -62,4 +64,30 @@ public class MyTileDecksTest {
         assertEquals(1, newTileDecks.deckSize(Tile.Kind.START));
     }
 
+
+    @Test
+    void drawingTilesDoesNotChangeOlderDecks() {
+        TileDecks decks = new TileDecks(List.of(), Tiles.TILES, List.of());
+        TileDecks drawn = decks.withTopTileDrawn(Tile.Kind.NORMAL).withTopTileDrawn(Tile.Kind.NORMAL);
+
+        assertEquals(Tiles.TILES, decks.normalTiles());
+        assertEquals(Tiles.TILES.subList(2, Tiles.TILES.size()), drawn.normalTiles());
+        assertEquals(new TileDecks(List.of(), Tiles.TILES.subList(2, Tiles.TILES.size()), List.of()), drawn);
+        assertSame(drawn.normalTiles(), new TileDecks(List.of(), drawn.normalTiles(), List.of()).normalTiles());
+        assertThrows(UnsupportedOperationException.class, () -> drawn.normalTiles().set(0, startTile));
+    }
+
+    @Test
+    void withTopTileDrawnUntilWorksOnLongDecks() {
+        List<Tile> tiles = new ArrayList<>(Collections.nCopies(200_000, tileWithNoRiver));
+        tiles.add(startTile);
+        TileDecks decks = new TileDecks(List.of(), tiles, List.of());
+
+        TileDecks drawn = decks.withTopTileDrawnUntil(Tile.Kind.NORMAL, tile -> tile == startTile);
+        assertEquals(1, drawn.deckSize(Tile.Kind.NORMAL));
+        assertSame(startTile, drawn.topTile(Tile.Kind.NORMAL));
+        assertEquals(0, decks.withTopTileDrawnUntil(Tile.Kind.NORMAL, tile -> false).deckSize(Tile.Kind.NORMAL));
+        assertSame(decks, decks.withTopTileDrawnUntil(Tile.Kind.NORMAL, tile -> true));
+    }
 }
+